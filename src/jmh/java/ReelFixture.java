@@ -0,0 +1,227 @@
+import benchmarks.Fixture;
+
+/**
+ * Benchmark fixture built from one of the original reels. The reel can be
+ * extended or shortened circularly and its symbols can be folded into a
+ * smaller alphabet, so the operations can be measured on different sizes
+ * with the real patterns.
+ *
+ * @author Todor Balabanov
+ */
+public class ReelFixture implements Fixture {
+
+	/**
+	 * Reconstruction context of the reel.
+	 */
+	private final ReelContext context;
+
+	/**
+	 * Source of pseudo-random numbers.
+	 */
+	private final RandomSource random;
+
+	/**
+	 * The first candidate.
+	 */
+	private final Chromosome first;
+
+	/**
+	 * The second candidate.
+	 */
+	private final Chromosome second;
+
+	/**
+	 * Scratch chromosome for the crossover.
+	 */
+	private final Chromosome child;
+
+	/**
+	 * Unsorted chunks values of a sampling.
+	 */
+	private final int[] unsorted;
+
+	/**
+	 * Chunks to be sorted.
+	 */
+	private final Chunks chunks;
+
+	/**
+	 * Steady-state population.
+	 */
+	private final Population population;
+
+	/**
+	 * Buffer for the tournament slots.
+	 */
+	private final int[] tournament = new int[Main.TOURNAMENT_SIZE];
+
+	/**
+	 * Buffer for the selected parents and child slots.
+	 */
+	private final int[] familiy = new int[3];
+
+	/**
+	 * Scratch chromosome for the steady-state children.
+	 */
+	private Chromosome scratch = new Chromosome();
+
+	/**
+	 * Level of the recursive genetic algorithm.
+	 */
+	private final int depth;
+
+	/**
+	 * Creates a reel from one of the original reels.
+	 *
+	 * @param index
+	 *            Index of the original reel.
+	 *
+	 * @param length
+	 *            Reel length, zero for the original length.
+	 *
+	 * @param alphabet
+	 *            Number of symbols, zero for the original symbols.
+	 *
+	 * @return Reel as numbers.
+	 */
+	static int[] reel(int index, int length, int alphabet) {
+		int[] original = Main.ORIGINAL_STRIPS[0][index];
+
+		int[] reel = new int[length > 0 ? length : original.length];
+		for (int i = 0; i < reel.length; i++) {
+			int value = original[i % original.length];
+			reel[i] = (alphabet > 0) ? 1 + (value - 1) % alphabet : value;
+		}
+
+		return reel;
+	}
+
+	/**
+	 * Constructor with all parameters.
+	 *
+	 * @param index
+	 *            Index of the original reel.
+	 *
+	 * @param length
+	 *            Reel length, zero for the original length.
+	 *
+	 * @param alphabet
+	 *            Number of symbols, zero for the original symbols.
+	 *
+	 * @param chunkSize
+	 *            The size of the chunks.
+	 *
+	 * @param depth
+	 *            Level of the recursive genetic algorithm.
+	 *
+	 * @param seed
+	 *            Seed of the pseudo-random numbers.
+	 */
+	public ReelFixture(int index, int length, int alphabet, int chunkSize,
+			int depth, long seed) {
+		this.context = ReelContext.exact(reel(index, length, alphabet),
+				chunkSize, Main.HISTOGRAM_THRESHOLD);
+		this.random = new RandomSource(seed);
+		this.depth = depth;
+
+		first = Chromosome.initializeRandom(context, random);
+		first.sampling(context.original(), random);
+		second = Chromosome.initializeRandom(context, random);
+		second.sampling(context.original(), random);
+		child = new Chromosome();
+
+		/* Chunks of a sampling before the sorting. */
+		chunks = new Chunks(context.original().chunks().count(), chunkSize);
+		for (int j = 0; j < chunks.count(); j++) {
+			chunks.window(j, first.genes(), first.length(),
+					random.nextInt(first.length()));
+		}
+		unsorted = chunks.values().clone();
+
+		population = Main.initializeRandomPopulation(context,
+				Main.POPULATION_SIZE, random);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object initializeOriginal() {
+		return Chromosome.initializeOriginal(context);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object sampling() {
+		first.sampling(context.original(), random);
+		return first.chunks();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object sort() {
+		System.arraycopy(unsorted, 0, chunks.values(), 0, unsorted.length);
+		chunks.sort();
+		return chunks;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double euclidean() {
+		return first.distance(context.original());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double levenshtein() {
+		return first.distance(context.original(), ChunkDistance.LEVENSHTEIN);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object mutate() {
+		second.mutate(context.original(), Main.MUTATION_RATE, random);
+		return second;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object crossover() {
+		first.crossover(second, context, random, child);
+		return child;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object generation() {
+		for (int i = 0; i < population.size(); i++) {
+			scratch = Main.offspring(population, context, random, tournament,
+					familiy, scratch);
+		}
+
+		return population.best();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object level() {
+		return Main.recursiveOptimalSolution(depth, context, random);
+	}
+
+}
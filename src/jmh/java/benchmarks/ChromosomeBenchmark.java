@@ -0,0 +1,131 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks of the chromosome operations used in each evaluation.
+ *
+ * @author Todor Balabanov
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChromosomeBenchmark {
+
+	/**
+	 * Index of the original reel.
+	 */
+	@Param({"0", "4"})
+	public int reel;
+
+	/**
+	 * Reel length, zero for the original length.
+	 */
+	@Param({"0", "500"})
+	public int length;
+
+	/**
+	 * Number of symbols, zero for the original symbols.
+	 */
+	@Param({"0", "6"})
+	public int alphabet;
+
+	/**
+	 * The size of the chunks.
+	 */
+	@Param({"2", "3", "4"})
+	public int chunkSize;
+
+	/**
+	 * Operations on the reel.
+	 */
+	private Fixture fixture;
+
+	/**
+	 * Creates the fixture for the parameters.
+	 */
+	@Setup
+	public void setup() {
+		fixture = Fixtures.create(reel, length, alphabet, chunkSize, 0);
+	}
+
+	/**
+	 * Original chromosome from the histogram.
+	 *
+	 * @return The original chromosome.
+	 */
+	@Benchmark
+	public Object initializeOriginal() {
+		return fixture.initializeOriginal();
+	}
+
+	/**
+	 * Chunks sampling of a candidate.
+	 *
+	 * @return Chunks of the candidate.
+	 */
+	@Benchmark
+	public Object sampling() {
+		return fixture.sampling();
+	}
+
+	/**
+	 * Sorting of the chunks.
+	 *
+	 * @return Sorted chunks.
+	 */
+	@Benchmark
+	public Object sort() {
+		return fixture.sort();
+	}
+
+	/**
+	 * Euclidean distance of the chunks.
+	 *
+	 * @return Average distance.
+	 */
+	@Benchmark
+	public double euclidean() {
+		return fixture.euclidean();
+	}
+
+	/**
+	 * Levenshtein distance of the chunks.
+	 *
+	 * @return Average distance.
+	 */
+	@Benchmark
+	public double levenshtein() {
+		return fixture.levenshtein();
+	}
+
+	/**
+	 * Mutation of the chunks.
+	 *
+	 * @return The mutated candidate.
+	 */
+	@Benchmark
+	public Object mutate() {
+		return fixture.mutate();
+	}
+
+	/**
+	 * Crossover of two candidates.
+	 *
+	 * @return The child.
+	 */
+	@Benchmark
+	public Object crossover() {
+		return fixture.crossover();
+	}
+
+}
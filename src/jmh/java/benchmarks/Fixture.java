@@ -0,0 +1,79 @@
+package benchmarks;
+
+/**
+ * Operations measured by the benchmarks. The application classes are in the
+ * default package, which can not be used from a named package, and JMH does
+ * not generate benchmarks in the default package. That is why the operations
+ * are implemented by a fixture in the default package and the benchmarks
+ * call them through this interface.
+ *
+ * @author Todor Balabanov
+ */
+public interface Fixture {
+
+	/**
+	 * Creates the chromosome of the original sequence from the histogram.
+	 *
+	 * @return The original chromosome.
+	 */
+	Object initializeOriginal();
+
+	/**
+	 * Samples the chunks of a candidate.
+	 *
+	 * @return Chunks of the candidate.
+	 */
+	Object sampling();
+
+	/**
+	 * Sorts a copy of unsorted chunks.
+	 *
+	 * @return Sorted chunks.
+	 */
+	Object sort();
+
+	/**
+	 * Euclidean distance between the chunks of a candidate and the original.
+	 *
+	 * @return Average distance.
+	 */
+	double euclidean();
+
+	/**
+	 * Levenshtein distance between the chunks of a candidate and the
+	 * original.
+	 *
+	 * @return Average distance.
+	 */
+	double levenshtein();
+
+	/**
+	 * Mutates the chunks of a candidate.
+	 *
+	 * @return The mutated candidate.
+	 */
+	Object mutate();
+
+	/**
+	 * Crossover of two candidates in a scratch child.
+	 *
+	 * @return The child.
+	 */
+	Object crossover();
+
+	/**
+	 * Creates as many steady-state children as the population size.
+	 *
+	 * @return The best individual after the generation.
+	 */
+	Object generation();
+
+	/**
+	 * Solves a single level of the recursive genetic algorithm together with
+	 * its subtrees.
+	 *
+	 * @return The best-found solution of the level.
+	 */
+	Object level();
+
+}
@@ -0,0 +1,56 @@
+package benchmarks;
+
+/**
+ * Factory of the benchmark fixtures. The fixture class is in the default
+ * package and it is loaded by name.
+ *
+ * @author Todor Balabanov
+ */
+final class Fixtures {
+
+	/**
+	 * Seed of the pseudo-random numbers, so all runs measure the same work.
+	 */
+	static final long SEED = 42;
+
+	/**
+	 * Utility class without instances.
+	 */
+	private Fixtures() {
+	}
+
+	/**
+	 * Creates a fixture from one of the original reels.
+	 *
+	 * @param reel
+	 *            Index of the original reel.
+	 *
+	 * @param length
+	 *            Reel length, zero for the original length.
+	 *
+	 * @param alphabet
+	 *            Number of symbols, zero for the original symbols.
+	 *
+	 * @param chunkSize
+	 *            The size of the chunks.
+	 *
+	 * @param depth
+	 *            Level of the recursive genetic algorithm.
+	 *
+	 * @return Benchmark fixture.
+	 */
+	static Fixture create(int reel, int length, int alphabet, int chunkSize,
+			int depth) {
+		try {
+			return (Fixture) Class.forName("ReelFixture")
+					.getConstructor(int.class, int.class, int.class, int.class,
+							int.class, long.class)
+					.newInstance(reel, length, alphabet, chunkSize, depth,
+							SEED);
+		} catch (ReflectiveOperationException exception) {
+			throw new RuntimeException("Benchmark fixture is not available!",
+					exception);
+		}
+	}
+
+}
@@ -0,0 +1,87 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * End-to-end benchmarks of the genetic algorithms.
+ *
+ * @author Todor Balabanov
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class GeneticAlgorithmBenchmark {
+
+	/**
+	 * Index of the original reel.
+	 */
+	@Param({"0", "4"})
+	public int reel;
+
+	/**
+	 * Reel length, zero for the original length.
+	 */
+	@Param({"0", "500"})
+	public int length;
+
+	/**
+	 * Number of symbols, zero for the original symbols.
+	 */
+	@Param({"0", "6"})
+	public int alphabet;
+
+	/**
+	 * The size of the chunks.
+	 */
+	@Param({"2", "3", "4"})
+	public int chunkSize;
+
+	/**
+	 * Level of the recursive genetic algorithm.
+	 */
+	@Param({"3"})
+	public int depth;
+
+	/**
+	 * Operations on the reel.
+	 */
+	private Fixture fixture;
+
+	/**
+	 * Creates the fixture for the parameters.
+	 */
+	@Setup
+	public void setup() {
+		fixture = Fixtures.create(reel, length, alphabet, chunkSize, depth);
+	}
+
+	/**
+	 * A generation of the steady-state genetic algorithm.
+	 *
+	 * @return The best individual.
+	 */
+	@Benchmark
+	public Object generation() {
+		return fixture.generation();
+	}
+
+	/**
+	 * A level of the recursive genetic algorithm.
+	 *
+	 * @return The best-found solution of the level.
+	 */
+	@Benchmark
+	public Object level() {
+		return fixture.level();
+	}
+
+}
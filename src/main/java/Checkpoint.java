@@ -0,0 +1,309 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Checkpoint file of a single reel reconstruction. It keeps the remaining
+ * offspring steps, the progress of the run, the state of the pseudo-random
+ * numbers, the reel context with its histogram, observed windows and
+ * metrics, the population and the cached fitness values of the reel, so the
+ * evolution can be resumed with the same results and the same budgets.
+ *
+ * The state is written in a memory buffer by the evolution thread and the
+ * buffer is written to the disk by a background thread. The file is replaced
+ * atomically through a temporary file, so there is always a complete
+ * checkpoint. If the background thread is behind, only the latest state is
+ * written. A failed writing is reported by the next snapshot or by the
+ * waiting for the last one.
+ *
+ * @author Todor Balabanov
+ */
+class Checkpoint {
+
+	/**
+	 * Magic number of the checkpoint format (CKPT in ASCII).
+	 */
+	static final int MAGIC = 0x434B5054;
+
+	/**
+	 * Version of the checkpoint format.
+	 */
+	static final byte VERSION = 6;
+
+	/**
+	 * Single background thread writes the checkpoints of all reels.
+	 */
+	private static final ExecutorService WRITER = Executors
+			.newSingleThreadExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "checkpoints");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	/**
+	 * Path of the checkpoint file.
+	 */
+	private final File file;
+
+	/**
+	 * The latest state waiting to be written or null.
+	 */
+	private final AtomicReference<byte[]> latest = new AtomicReference<byte[]>();
+
+	/**
+	 * The last scheduled writing.
+	 */
+	private volatile Future<?> pending = null;
+
+	/**
+	 * Failure of the last writing or null.
+	 */
+	private volatile IOException failure = null;
+
+	/**
+	 * Offspring steps left to be done.
+	 */
+	private long steps;
+
+	/**
+	 * Progress of the run.
+	 */
+	private Termination.Progress progress;
+
+	/**
+	 * Source of pseudo-random numbers.
+	 */
+	private RandomSource random;
+
+	/**
+	 * Reconstruction context of the reel.
+	 */
+	private ReelContext context;
+
+	/**
+	 * Current generation as population of individuals.
+	 */
+	private Population population;
+
+	/**
+	 * Constructor with all parameters.
+	 *
+	 * @param file
+	 *            Path of the checkpoint file.
+	 */
+	public Checkpoint(File file) {
+		super();
+		this.file = file;
+	}
+
+	/**
+	 * Checks for a written checkpoint.
+	 *
+	 * @return True if the checkpoint file exists.
+	 */
+	public boolean exists() {
+		return file.isFile();
+	}
+
+	/**
+	 * Takes a snapshot of the evolution state and schedules its writing.
+	 *
+	 * @param steps
+	 *            Offspring steps left to be done.
+	 *
+	 * @param progress
+	 *            Progress of the run.
+	 *
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 *
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 *
+	 * @param population
+	 *            Current generation as population of individuals.
+	 */
+	public void save(long steps, Termination.Progress progress,
+			RandomSource random, ReelContext context, Population population) {
+		check();
+
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(buffer)) {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			out.writeLong(steps);
+			progress.write(out);
+			random.write(out);
+			context.write(out);
+			population.write(out);
+
+			/* Cached fitness values of the reel are saved. */
+			out.writeBoolean(context.cache() != null);
+			if (context.cache() != null) {
+				context.cache().write(out);
+			}
+		} catch (IOException exception) {
+			throw new RuntimeException(exception);
+		}
+
+		/* A new writing is needed only if no writing is waiting. */
+		if (latest.getAndSet(buffer.toByteArray()) == null) {
+			pending = WRITER.submit(new Runnable() {
+				@Override
+				public void run() {
+					write(latest.getAndSet(null));
+				}
+			});
+		}
+	}
+
+	/**
+	 * Writes a state in a temporary file and moves it over the checkpoint.
+	 *
+	 * @param bytes
+	 *            Snapshot of the state.
+	 */
+	private void write(byte[] bytes) {
+		File temporary = new File(file.getPath() + ".tmp");
+		try {
+			try (FileOutputStream out = new FileOutputStream(temporary)) {
+				out.write(bytes);
+				out.getFD().sync();
+			}
+
+			Files.move(temporary.toPath(), file.toPath(),
+					StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException exception) {
+			failure = exception;
+		}
+	}
+
+	/**
+	 * Stops the evolution if a writing has failed.
+	 */
+	private void check() {
+		IOException last = failure;
+		if (last != null) {
+			throw new RuntimeException(
+					"Checkpoint " + file + " can not be written!", last);
+		}
+	}
+
+	/**
+	 * Waits for the writing of the last snapshot and reports its failure.
+	 *
+	 * @throws InterruptedException
+	 *             If the waiting is interrupted.
+	 */
+	public void await() throws InterruptedException {
+		Future<?> last = pending;
+		if (last == null) {
+			return;
+		}
+
+		try {
+			last.get();
+		} catch (ExecutionException exception) {
+			throw new RuntimeException(exception);
+		}
+
+		check();
+	}
+
+	/**
+	 * Reads the checkpoint file.
+	 *
+	 * @param cache
+	 *            Fitness cache of the reel, where the cached values are
+	 *            restored, or null.
+	 *
+	 * @throws IOException
+	 *             If the file can not be read.
+	 */
+	public void load(FitnessCache cache) throws IOException {
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC) {
+				throw new RuntimeException("It is not a checkpoint file!");
+			}
+			if (in.readByte() != VERSION) {
+				throw new RuntimeException(
+						"Unsupported version of the checkpoint file!");
+			}
+
+			steps = in.readLong();
+			progress = Termination.Progress.read(in);
+			random = RandomSource.read(in);
+			context = ReelContext.read(in);
+			population = Population.read(in);
+
+			if (in.readBoolean() == true && cache != null) {
+				cache.read(context, in);
+			}
+			context.cache(cache);
+		}
+	}
+
+	/**
+	 * Offspring steps left getter.
+	 *
+	 * @return Offspring steps left to be done.
+	 */
+	public long steps() {
+		return steps;
+	}
+
+	/**
+	 * Progress of the run getter.
+	 *
+	 * @return Progress of the run.
+	 */
+	public Termination.Progress progress() {
+		return progress;
+	}
+
+	/**
+	 * Pseudo-random numbers getter.
+	 *
+	 * @return Source of pseudo-random numbers.
+	 */
+	public RandomSource random() {
+		return random;
+	}
+
+	/**
+	 * Reconstruction context getter.
+	 *
+	 * @return Reconstruction context of the reel.
+	 */
+	public ReelContext context() {
+		return context;
+	}
+
+	/**
+	 * Population getter.
+	 *
+	 * @return Population of the checkpoint.
+	 */
+	public Population population() {
+		return population;
+	}
+
+}
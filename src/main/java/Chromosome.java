@@ -1,13 +1,7 @@
-import java.util.ArrayList;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Random;
-import java.util.Set;
 
 /**
  * Genetic algorithm chromosome representation.
@@ -17,69 +11,41 @@ import java.util.Set;
 class Chromosome {
 
 	/**
-	 * Sequence chunks comparator.
+	 * Buffers of the mutated positions and values for each thread.
 	 */
-	private static final Comparator<List<Integer>> CHUNKS_COMAPARATOR = new Comparator<List<Integer>>() {
+	private static final ThreadLocal<int[][]> MUTATIONS = new ThreadLocal<int[][]>() {
 		@Override
-		public int compare(List<Integer> first, List<Integer> second) {
-			if (first == null) {
-				throw new RuntimeException(
-						"First chunks should not be null pointer!");
-			}
-
-			if (second == null) {
-				throw new RuntimeException(
-						"Second chunks should not be null pointer!");
-			}
-
-			if (first.size() != second.size()) {
-				throw new RuntimeException("Chunks should be with equal size!");
-			}
-
-			int size = Math.min(first.size(), second.size());
-			for (int i = 0; i < size; i++) {
-				if (first.get(i) - second.get(i) == 0) {
-					continue;
-				}
-
-				return first.get(i) - second.get(i);
-			}
-
-			return 0;
+		protected int[][] initialValue() {
+			return new int[][]{{}, {}};
 		}
 	};
 
 	/**
-	 * Pseudo-random number generator.
-	 */
-	private static final Random PRNG = new Random();
-
-	/**
-	 * Chunks histogram is used to estimate how often chunks are met in the
-	 * original sequence. This estimation is very useful for estimating how many
-	 * chunks to be presented in the original chromosome.
+	 * Optimal sequence candidate. The array is reused, so it can be longer
+	 * than the sequence.
 	 */
-	private static Map<List<Integer>, Integer> histogram = new HashMap<List<Integer>, Integer>();
+	private int[] sequence = {};
 
 	/**
-	 * Chromosome minimal length.
+	 * Length of the sequence.
 	 */
-	private static int minLength = 0;
+	private int length = 0;
 
 	/**
-	 * Chromosome maximal length.
+	 * Randomly generated chunks.
 	 */
-	private static int maxLength = 0;
+	private Chunks chunks = new Chunks();
 
 	/**
-	 * Optimal sequence candidate.
+	 * Counts of all circular windows of the sequence.
 	 */
-	private int[] sequence = {};
+	private Histogram windows = null;
 
 	/**
-	 * List of randomly generated chunks.
+	 * Sum of the divergence terms for the windows counts. It is not a number
+	 * when the counts do not correspond to the current sequence.
 	 */
-	private List<List<Integer>> chunks = new ArrayList<List<Integer>>();
+	private double divergence = Double.NaN;
 
 	/**
 	 * The chromosome fitness value is used during the parents selection
@@ -88,131 +54,94 @@ class Chromosome {
 	private double fitness = 0.0;
 
 	/**
-	 * Creates a chromosome from an original sequence pattern.
-	 * 
-	 * @param reel
-	 *            Pattern as numbers.
-	 * 
-	 * @param chunkSize
-	 *            The size of the chunks represented in the chromosome.
+	 * Version of the reel context, which was the target of the evaluation.
+	 */
+	private long version = -1;
+
+	/**
+	 * Creates the original chromosome from the chunks histogram of a reel
+	 * context.
 	 * 
-	 * @param histogramThreshold
-	 *            Minimum count of the least probable chunk from the sample.
+	 * @param context
+	 *            Reconstruction context with the original chunks histogram.
 	 * 
 	 * @return An original reel chromosome representation.
 	 */
-	public static Chromosome initializeOriginal(int[] reel, int chunkSize,
-			int histogramThreshold) {
-		/* Build a chunks histogram. */
-		int leastProbable = 0;
-		histogram = new HashMap<List<Integer>, Integer>();
-		while (leastProbable < histogramThreshold) {
-			/* Form a single chunk. */
-			List<Integer> chunk = new ArrayList<Integer>();
-			int position = PRNG.nextInt(reel.length);
-			for (int i = 0; i < chunkSize; i++) {
-				chunk.add(reel[(position + i) % reel.length]);
-			}
-
-			/*
-			 * If the chunk is not presented it appears for the first time in
-			 * the current sample.
-			 */
-			if (histogram.containsKey(chunk) == false) {
-				/*
-				 * If the chunk is not presented it appears for the first time
-				 * in the current sample.
-				 */
-				leastProbable = 1;
-				histogram.put(chunk, 1);
-			} else {
-				/*
-				 * If the chunk is presented its counter should be increased.
-				 */
-				int count = histogram.get(chunk) + 1;
-				histogram.put(chunk, count);
-
-				/* Check what is the current least probable chunk. */
-				leastProbable = Integer.MAX_VALUE;
-				for (List<Integer> key : histogram.keySet()) {
-					if (histogram.get(key) < leastProbable) {
-						leastProbable = histogram.get(key);
-					}
-				}
-			}
-		}
-		// System.err.println(histogram);
+	static Chromosome initializeOriginal(ReelContext context) {
+		Histogram histogram = context.histogram();
+		ChunkCodec codec = context.codec();
+		int chunkSize = codec.size();
 
 		/* Form list of chunks according the amount of their appearance. */
-		List<List<Integer>> chunks = new ArrayList<List<Integer>>();
-		for (List<Integer> chunk : histogram.keySet()) {
+		Chunks chunks = new Chunks((int) histogram.total(), chunkSize);
+		for (int i = 0, index = 0; i < histogram.distinct(); i++) {
 			/*
 			 * The count can be reduced with least probable value plus one in
 			 * order sequences for chromosomes to be shorter.
 			 */
-			for (int count = histogram.get(chunk); count > 0; count--) {
-				chunks.add(chunk);
+			for (int count = histogram.count(i); count > 0; count--) {
+				codec.decode(histogram.code(i), chunks.values(),
+						chunkSize * index++);
 			}
 		}
 
 		/* Create and initialize original. */
 		Chromosome result = new Chromosome();
-		result.sequence(reel);
+		result.sequence(context.reel());
 		result.chunks(chunks);
 
-		/* Estimation of the unique chunks and unique values amount. */
-		int chunksTotalLength = 0;
-		Set<Integer> uniqueValues = new HashSet<Integer>();
-		Set<List<Integer>> uniqueChunks = new HashSet<List<Integer>>();
-		for (List<Integer> chunk : result.chunks()) {
-			chunksTotalLength += chunk.size();
-
-			/* Update set of unique chunks. */
-			uniqueChunks.add(chunk);
-
-			for (Integer value : chunk) {
-				/* Update set of unique values. */
-				uniqueValues.add(value);
-			}
-		}
-		minLength = uniqueValues.size();
-		maxLength = chunksTotalLength / uniqueChunks.size();
-		// System.err.println(uniqueValues);
-
 		return result;
 	}
 
 	/**
 	 * Construct randomly generated chromosomes according to a given sample.
 	 * 
-	 * @param sample
-	 *            A sample chromosome which is used during chromosome creation.
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
 	 * 
 	 * @return Randomly initialized chromosome.
 	 */
-	public static Chromosome initializeRandom(Chromosome sample) {
+	public static Chromosome initializeRandom(ReelContext context,
+			RandomSource random) {
+		/* Form chromosome. It is not evaluated yet. */
+		Chromosome result = new Chromosome();
+		result.randomize(context, random);
+
+		return result;
+	}
+
+	/**
+	 * Fills the chromosome with a random sequence according to a given
+	 * sample. The storage is reused when it is big enough.
+	 * 
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 */
+	void randomize(ReelContext context, RandomSource random) {
+		Chromosome sample = context.original();
+		int minLength = context.minLength();
+		int maxLength = context.maxLength();
+
 		/*
 		 * When sequence size is not known in advance it is difficult to guess
 		 * the real size. Random size between the number of unique values and
 		 * total length of the chunks is used.
 		 */
-		int sequence[] = new int[minLength
-				+ PRNG.nextInt(maxLength - minLength + 1)];
+		length(minLength + random.nextInt(maxLength - minLength + 1));
 
 		/*
 		 * Fill the candidate sequence with values from the original chunks.
 		 */
-		for (int j = 0; j < sequence.length; j++) {
-			sequence[j] = sample.randomValue();
+		for (int j = 0; j < length; j++) {
+			sequence[j] = sample.randomValue(random);
 		}
 		// System.err.println(Arrays.toString(sequence));
-
-		/* Form chromosome. */
-		Chromosome result = new Chromosome();
-		result.sequence(sequence);
-		result.sampling(sample);
-
-		return result;
 	}
 
 	/**
@@ -228,6 +157,11 @@ class Chromosome {
 	 * @return Sequence as a string reference.
 	 */
 	public int[] sequence() {
+		/* The storage is trimmed only when it is longer than the sequence. */
+		if (sequence.length != length) {
+			return Arrays.copyOf(sequence, length);
+		}
+
 		return sequence;
 	}
 
@@ -239,28 +173,128 @@ class Chromosome {
 	 */
 	public void sequence(int[] sequence) {
 		this.sequence = sequence;
+		this.length = sequence.length;
+
+		/* Windows counts are not valid for the new sequence. */
+		this.divergence = Double.NaN;
+	}
+
+	/**
+	 * Sequence storage getter. Only the first length values are used.
+	 * 
+	 * @return Sequence storage reference.
+	 */
+	int[] genes() {
+		return sequence;
+	}
+
+	/**
+	 * Sequence length getter.
+	 * 
+	 * @return Length of the sequence.
+	 */
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * Sequence length setter. The storage is reused when it is big enough and
+	 * the values of the sequence should be filled after that.
+	 * 
+	 * @param length
+	 *            Length of the sequence.
+	 */
+	void length(int length) {
+		if (sequence.length < length) {
+			sequence = new int[length];
+		}
+		this.length = length;
+
+		/* Chunks and windows counts are not valid for the new sequence. */
+		chunks.resize(0, chunks.size());
+		this.divergence = Double.NaN;
 	}
 
 	/**
-	 * A list of chunks of the sequence getter.
+	 * Chunks of the sequence getter.
 	 * 
 	 * @return Randomly observed chunks of the sequence.
 	 */
-	public List<List<Integer>> chunks() {
+	public Chunks chunks() {
 		return chunks;
 	}
 
 	/**
-	 * A list of chunks of the sequence getter.
+	 * Chunks of the sequence setter.
 	 * 
 	 * @param chunks
 	 *            Randomly observed chunks of the sequence.
 	 */
-	public void chunks(List<List<Integer>> chunks) {
+	public void chunks(Chunks chunks) {
 		this.chunks = chunks;
 
 		/* Chunks should be sorted when fitness value is estimated. */
-		Collections.sort(chunks, CHUNKS_COMAPARATOR);
+		chunks.sort();
+	}
+
+	/**
+	 * Circular windows counts getter.
+	 * 
+	 * @return Counts of the windows from the last evaluation.
+	 */
+	public Histogram windows() {
+		/* Only the windows fitness needs the counts. */
+		if (windows == null) {
+			windows = new Histogram();
+		}
+
+		return windows;
+	}
+
+	/**
+	 * Sum of the divergence terms getter.
+	 * 
+	 * @return Sum of the terms or not a number if the windows counts are not
+	 *         valid.
+	 */
+	double divergence() {
+		return divergence;
+	}
+
+	/**
+	 * Sum of the divergence terms setter.
+	 * 
+	 * @param divergence
+	 *            Sum of the terms for the current windows counts.
+	 */
+	void divergence(double divergence) {
+		this.divergence = divergence;
+	}
+
+	/**
+	 * Applies a set of point edits to the sequence and updates the fitness
+	 * value. Only the windows which cover the edited positions are evaluated
+	 * again, so the cost is proportional to the number of edits times the
+	 * chunk size.
+	 * 
+	 * @param positions
+	 *            Positions in the sequence to be changed.
+	 * 
+	 * @param values
+	 *            New values for the positions.
+	 * 
+	 * @param count
+	 *            Number of the used positions and values.
+	 * 
+	 * @param fitness
+	 *            Windows fitness used for the evaluation.
+	 * 
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 */
+	public void edit(int[] positions, int[] values, int count,
+			WindowsFitness fitness, ReelContext context) {
+		fitness(-fitness.edit(this, context, positions, values, count));
 	}
 
 	/**
@@ -282,14 +316,36 @@ class Chromosome {
 		this.fitness = fitness;
 	}
 
+	/**
+	 * Evaluation target version getter.
+	 * 
+	 * @return Version of the reel context used in the evaluation.
+	 */
+	public long version() {
+		return version;
+	}
+
+	/**
+	 * Evaluation target version setter.
+	 * 
+	 * @param version
+	 *            Version of the reel context used in the evaluation.
+	 */
+	public void version(long version) {
+		this.version = version;
+	}
+
 	/**
 	 * Provides random value from the chunks.
 	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 * 
 	 * @return Randomly selected value from a randomly selected chunk.
 	 */
-	private int randomValue() {
-		List<Integer> chunk = chunks().get(PRNG.nextInt(chunks().size()));
-		return chunk.get(PRNG.nextInt(chunk.size()));
+	private int randomValue(RandomSource random) {
+		return chunks.get(random.nextInt(chunks.count()),
+				random.nextInt(chunks.size()));
 	}
 
 	/**
@@ -298,122 +354,60 @@ class Chromosome {
 	 * 
 	 * @param sample
 	 *            A sample chromosome which is used during chromosome creation.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
 	 */
-	void sampling(Chromosome sample) {
-		/* Generate chunks for the candidate sequence. */
-		List<List<Integer>> chunks = new ArrayList<List<Integer>>();
-		for (int j = 0; j < sample.chunks().size(); j++) {
+	void sampling(Chromosome sample, RandomSource random) {
+		/* Generate chunks for the candidate sequence in the same storage. */
+		chunks.resize(sample.chunks.count(), sample.chunks.size());
+		for (int j = 0; j < chunks.count(); j++) {
 			/* Form a single chunk. */
-			List<Integer> chunk = new ArrayList<Integer>();
-			int position = PRNG.nextInt(sequence.length);
-			for (int k = 0; k < sample.chunks().get(j).size(); k++) {
-				chunk.add(sequence[(position + k) % sequence.length]);
-			}
-
-			/* Add new chunk to the chunks list. */
-			chunks.add(chunk);
+			chunks.window(j, sequence, length, random.nextInt(length));
 		}
 
 		chunks(chunks);
 	}
 
 	/**
-	 * Calculate Euclidean distance between chunks.
-	 * 
-	 * @param first
-	 *            First chunk.
-	 * @param second
-	 *            Second chunk.
+	 * Calculates the Euclidean distance between two chromosomes.
 	 * 
-	 * @return Distance calculated.
-	 */
-	private double euclidean(List<Integer> first, List<Integer> second) {
-		int chunkSize = Math.min(first.size(), second.size());
-
-		double distance = 0;
-		for (int j = 0; j < chunkSize; j++) {
-			distance += (first.get(j) - second.get(j))
-					* (first.get(j) - second.get(j));
-		}
-
-		/* Square root as it is in the Euclidean norm. */
-		return Math.sqrt(distance);
-	}
-
-	/**
-	 * Calculate Levenshtein distance between chunks.
-	 * 
-	 * @param first
-	 *            First chunk.
-	 * @param second
-	 *            Second chunk.
+	 * @param sample
+	 *            Sample chromosome to compare with.
 	 * 
-	 * @return Distance calculated.
+	 * @return Distance calculated between the two chromosomes.
 	 */
-	private double levenshtein(List<Integer> first, List<Integer> second) {
-		int[][] matrix = new int[first.size() + 1][second.size() + 1];
-
-		for (int i = 0; i <= first.size(); i++) {
-			for (int j = 0; j <= second.size(); j++) {
-				if (i == 0) {
-					matrix[i][j] = j;
-				} else if (j == 0) {
-					matrix[i][j] = i;
-				} else {
-					int cost = (first.get(i - 1) == second.get(j - 1)) ? 0 : 1;
-
-					int a = matrix[i - 1][j - 1] + cost;
-					int b = matrix[i - 1][j] + 1;
-					int c = matrix[i][j - 1] + 1;
-
-					matrix[i][j] = (a < b)
-							? ((a < c) ? a : c)
-							: ((b < c) ? b : c);
-				}
-			}
-		}
-
-		return matrix[first.size()][second.size()];
+	public double distance(Chromosome sample) {
+		return distance(sample, ChunkDistance.EUCLIDEAN);
 	}
 
 	/**
-	 * Calculates the distance between two chromosomes.
-	 * 
-	 * Weighted Euclidean distance between lists of chunks is calculated, but
-	 * other distances may be more proper.
+	 * Calculates the distance between two chromosomes as the average
+	 * distance between the sorted chunks at the same places.
 	 * 
 	 * @param sample
 	 *            Sample chromosome to compare with.
 	 * 
+	 * @param metric
+	 *            Distance between two chunks.
+	 * 
 	 * @return Distance calculated between the two chromosomes.
 	 */
-	public double distance(Chromosome sample) {
+	public double distance(Chromosome sample, ChunkDistance metric) {
 		/* Chunks lists should be with equal length. */
-		if (chunks.size() != sample.chunks.size()) {
+		if (chunks.count() != sample.chunks.count()) {
 			throw new RuntimeException(
 					"The distance can be calculated only between lists of chunks with equal length!");
 		}
 
-		double result = 0;
-		int listSize = Math.min(chunks.size(), sample.chunks.size());
-		for (int i = 0; i < listSize; i++) {
-			List<Integer> first = chunks.get(i);
-			List<Integer> second = sample.chunks.get(i);
-
-			/* Chunks lists should be with equal length. */
-			if (first.size() != second.size()) {
-				throw new RuntimeException(
-						"Chunks should be with equal sizes!");
-			}
-
-			result += euclidean(first, second);
-			// result += levenshtein(first, second);
+		/* Chunks lists should be with equal length. */
+		if (chunks.size() != sample.chunks.size()) {
+			throw new RuntimeException("Chunks should be with equal sizes!");
 		}
 
 		/* Do an average. */
-		result /= listSize;
-
-		return result;
+		return metric.total(chunks.values(), sample.chunks.values(),
+				chunks.count(), chunks.size()) / chunks.count();
 	}
 
 	/**
@@ -425,17 +419,72 @@ class Chromosome {
 	 * 
 	 * @param rate
 	 *            Mutation rate between 0 and 1.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 */
+	public void mutate(Chromosome sample, double rate, RandomSource random) {
+		int[] values = chunks.values();
+		for (int i = 0; i < chunks.count() * chunks.size(); i++) {
+			if (random.nextDouble() >= rate) {
+				continue;
+			}
+
+			/* Mutate only with the proper rate. */
+			values[i] = sample.randomValue(random);
+		}
+	}
+
+	/**
+	 * Point mutation of the sequence with a certain probability for each
+	 * position. The mutated positions are applied as edits, so only the
+	 * windows which cover them are evaluated again. The positions and the
+	 * values are collected in buffers of the thread, which grow only with
+	 * the longest sequence.
+	 * 
+	 * @param sample
+	 *            Source of mutation information.
+	 * 
+	 * @param rate
+	 *            Mutation rate between 0 and 1.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 * 
+	 * @param fitness
+	 *            Windows fitness used for the evaluation.
+	 * 
+	 * @param context
+	 *            Reconstruction context of the reel.
 	 */
-	public void mutate(Chromosome sample, double rate) {
-		for (List<Integer> chunk : chunks()) {
-			for (int i = 0; i < chunk.size(); i++) {
-				if (PRNG.nextDouble() >= rate) {
-					continue;
-				}
+	public void mutate(Chromosome sample, double rate, RandomSource random,
+			WindowsFitness fitness, ReelContext context) {
+		Metrics metrics = context.metrics();
+		long time = metrics.time();
+
+		int[][] buffers = MUTATIONS.get();
+		if (buffers[0].length < length) {
+			buffers[0] = new int[length];
+			buffers[1] = new int[length];
+		}
+		int[] positions = buffers[0];
+		int[] values = buffers[1];
 
-				/* Mutate only with the proper rate. */
-				chunk.set(i, sample.randomValue());
+		int count = 0;
+		for (int i = 0; i < length; i++) {
+			if (random.nextDouble() >= rate) {
+				continue;
 			}
+
+			positions[count] = i;
+			values[count] = sample.randomValue(random);
+			count++;
+		}
+
+		/* The edits are timed as a distance calculation. */
+		metrics.phase(Phase.MUTATION, time);
+		if (count > 0) {
+			edit(positions, values, count, fitness, context);
 		}
 	}
 
@@ -445,34 +494,231 @@ class Chromosome {
 	 * @param mate
 	 *            Mating chromosome.
 	 * 
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 * 
 	 * @return Child chromosome after mating.
 	 */
-	public Chromosome crossover(Chromosome mate) {
+	public Chromosome crossover(Chromosome mate, ReelContext context,
+			RandomSource random) {
+		Chromosome result = new Chromosome();
+		crossover(mate, context, random, result);
+		return result;
+	}
+
+	/**
+	 * Crossover with a mate, where the child is written in an existing
+	 * chromosome. The storage of the child is reused, so there is no memory
+	 * allocation when the child storage is big enough.
+	 * 
+	 * @param mate
+	 *            Mating chromosome.
+	 * 
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 * 
+	 * @param child
+	 *            Chromosome for the child, different from the parents.
+	 */
+	public void crossover(Chromosome mate, ReelContext context,
+			RandomSource random, Chromosome child) {
+		if (child == this || child == mate) {
+			throw new RuntimeException(
+					"Child should be different from the parents!");
+		}
+
 		/* Mating threshold is around half of the genes. */
-		double threshold = 0.5 + PRNG.nextGaussian() * 0.2;
+		double threshold = 0.5 + random.nextGaussian() * 0.2;
 
 		/* Child has variable length. */
-		int sequence[] = new int[minLength
-				+ PRNG.nextInt(maxLength - minLength + 1)];
+		child.length(context.minLength() + random
+				.nextInt(context.maxLength() - context.minLength() + 1));
 
 		/*
 		 * Fill the candidate sequence with values from the original chunks.
 		 */
-		int[] first = sequence();
-		int[] second = mate.sequence();
-		for (int i = 0; i < sequence.length; i++) {
-			if (PRNG.nextDouble() < threshold) {
-				sequence[i] = first[i % first.length];
+		int[] sequence = child.sequence;
+		int[] first = this.sequence;
+		int[] second = mate.sequence;
+		for (int i = 0, j = 0, k = 0; i < child.length; i++) {
+			if (random.nextDouble() < threshold) {
+				sequence[i] = first[j];
 			} else {
-				sequence[i] = second[i % second.length];
+				sequence[i] = second[k];
+			}
+
+			/* Parents are shorter or longer than the child. */
+			if (++j == length) {
+				j = 0;
+			}
+			if (++k == mate.length) {
+				k = 0;
 			}
 		}
 		// System.err.println(Arrays.toString(sequence));
+	}
 
-		/* Form chromosome. */
+	/**
+	 * Creates an independent copy with the same sequence, chunks and
+	 * fitness value.
+	 * 
+	 * @return Copy of the chromosome.
+	 */
+	public Chromosome copy() {
 		Chromosome result = new Chromosome();
+		result.sequence(Arrays.copyOf(sequence, length));
+
+		Chunks chunks = new Chunks(this.chunks.count(), this.chunks.size());
+		System.arraycopy(this.chunks.values(), 0, chunks.values(), 0,
+				chunks.count() * chunks.size());
+		result.chunks(chunks);
+
+		result.fitness(fitness);
+		result.version(version);
+		return result;
+	}
+
+	/**
+	 * Writes the sequence with its chunks from the last evaluation, its
+	 * fitness value and the version of its evaluation.
+	 * 
+	 * @param out
+	 *            Binary output.
+	 * 
+	 * @throws IOException
+	 *             If the chromosome can not be written.
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeDouble(fitness);
+		out.writeLong(version);
+		out.writeInt(length);
+		for (int i = 0; i < length; i++) {
+			out.writeInt(sequence[i]);
+		}
+
+		out.writeInt(chunks.count());
+		out.writeInt(chunks.size());
+		int[] values = chunks.values();
+		for (int i = 0; i < chunks.count() * chunks.size(); i++) {
+			out.writeInt(values[i]);
+		}
+	}
+
+	/**
+	 * Reads a chromosome written before.
+	 * 
+	 * @param in
+	 *            Binary input.
+	 * 
+	 * @return Chromosome with the stored sequence and fitness.
+	 * 
+	 * @throws IOException
+	 *             If the chromosome can not be read.
+	 */
+	public static Chromosome read(DataInput in) throws IOException {
+		Chromosome result = new Chromosome();
+		double fitness = in.readDouble();
+		long version = in.readLong();
+
+		int[] sequence = new int[in.readInt()];
+		for (int i = 0; i < sequence.length; i++) {
+			sequence[i] = in.readInt();
+		}
+
+		Chunks chunks = new Chunks(in.readInt(), in.readInt());
+		int[] values = chunks.values();
+		for (int i = 0; i < chunks.count() * chunks.size(); i++) {
+			values[i] = in.readInt();
+		}
+
 		result.sequence(sequence);
+		result.chunks(chunks);
+		result.fitness(fitness);
+		result.version(version);
+		return result;
+	}
+
+	/**
+	 * Writes the sequence and the fitness value in a compact form for the
+	 * exchange between processes. The symbols are stored with the smallest
+	 * width which fits all of them and the chunks are not written.
+	 * 
+	 * @param out
+	 *            Binary output.
+	 * 
+	 * @throws IOException
+	 *             If the chromosome can not be written.
+	 */
+	public void encode(DataOutput out) throws IOException {
+		int width = 1;
+		for (int i = 0; i < length; i++) {
+			if (sequence[i] < 0 || sequence[i] > 0xFFFF) {
+				width = 4;
+				break;
+			} else if (sequence[i] > 0xFF) {
+				width = 2;
+			}
+		}
+
+		out.writeDouble(fitness);
+		out.writeLong(version);
+		out.writeInt(length);
+		out.writeByte(width);
+		for (int i = 0; i < length; i++) {
+			if (width == 1) {
+				out.writeByte(sequence[i]);
+			} else if (width == 2) {
+				out.writeShort(sequence[i]);
+			} else {
+				out.writeInt(sequence[i]);
+			}
+		}
+	}
 
+	/**
+	 * Reads a chromosome written in the compact form.
+	 * 
+	 * @param in
+	 *            Binary input.
+	 * 
+	 * @return Chromosome with the stored sequence and fitness.
+	 * 
+	 * @throws IOException
+	 *             If the chromosome can not be read.
+	 */
+	public static Chromosome decode(DataInput in) throws IOException {
+		Chromosome result = new Chromosome();
+		double fitness = in.readDouble();
+		long version = in.readLong();
+
+		int[] sequence = new int[in.readInt()];
+		int width = in.readByte();
+		for (int i = 0; i < sequence.length; i++) {
+			switch (width) {
+			case 1:
+				sequence[i] = in.readUnsignedByte();
+				break;
+			case 2:
+				sequence[i] = in.readUnsignedShort();
+				break;
+			case 4:
+				sequence[i] = in.readInt();
+				break;
+			default:
+				throw new RuntimeException(
+						"Symbols should be stored in 1, 2 or 4 bytes!");
+			}
+		}
+
+		result.sequence(sequence);
+		result.fitness(fitness);
+		result.version(version);
 		return result;
 	}
 
@@ -481,7 +727,7 @@ class Chromosome {
 	 */
 	@Override
 	public String toString() {
-		return "Chromosome [sequence=" + Arrays.toString(sequence) + ", chunks="
+		return "Chromosome [sequence=" + Arrays.toString(sequence()) + ", chunks="
 				+ chunks + ", fitness=" + fitness + "]";
 	}
 
@@ -0,0 +1,219 @@
+/**
+ * Packing of equally sized chunks into single primitive codes. Each symbol is
+ * shifted by the minimal symbol value and stored in a fixed number of bits.
+ * The first symbol takes the most significant position, so the numeric order
+ * of the codes is the same as the lexicographic order of the chunks.
+ *
+ * @author Todor Balabanov
+ */
+class ChunkCodec {
+
+	/**
+	 * Number of symbols in a single chunk.
+	 */
+	private final int size;
+
+	/**
+	 * The smallest symbol value which can be packed.
+	 */
+	private final int minimum;
+
+	/**
+	 * Number of bits used for a single symbol.
+	 */
+	private final int bits;
+
+	/**
+	 * Bit mask of a single packed symbol.
+	 */
+	private final long mask;
+
+	/**
+	 * Constructor with all parameters.
+	 *
+	 * @param size
+	 *            Number of symbols in a single chunk.
+	 *
+	 * @param minimum
+	 *            The smallest symbol value.
+	 *
+	 * @param maximum
+	 *            The largest symbol value.
+	 */
+	public ChunkCodec(int size, int minimum, int maximum) {
+		if (size <= 0) {
+			throw new RuntimeException("Chunk size should be positive!");
+		}
+
+		if (minimum > maximum) {
+			throw new RuntimeException(
+					"Minimum symbol should not be greater than the maximum!");
+		}
+
+		this.size = size;
+		this.minimum = minimum;
+		this.bits = Math.max(1,
+				64 - Long.numberOfLeadingZeros((long) maximum - minimum));
+		this.mask = (1L << bits) - 1;
+	}
+
+	/**
+	 * Creates a codec for the symbols of a sequence.
+	 *
+	 * @param sequence
+	 *            Sequence of symbols.
+	 *
+	 * @param length
+	 *            Number of used symbols in the sequence.
+	 *
+	 * @param size
+	 *            Number of symbols in a single chunk.
+	 *
+	 * @return Codec able to pack all chunks of the sequence.
+	 */
+	public static ChunkCodec of(int[] sequence, int length, int size) {
+		int minimum = Integer.MAX_VALUE;
+		int maximum = Integer.MIN_VALUE;
+		for (int i = 0; i < length; i++) {
+			minimum = Math.min(minimum, sequence[i]);
+			maximum = Math.max(maximum, sequence[i]);
+		}
+
+		/* Empty sequences have nothing to be packed. */
+		if (length <= 0) {
+			minimum = maximum = 0;
+		}
+
+		return new ChunkCodec(size, minimum, maximum);
+	}
+
+	/**
+	 * Number of symbols in a single chunk getter.
+	 *
+	 * @return Chunk size.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * The smallest supported symbol getter.
+	 *
+	 * @return Minimum symbol.
+	 */
+	public int minimum() {
+		return minimum;
+	}
+
+	/**
+	 * The largest supported symbol getter.
+	 *
+	 * @return Maximum symbol.
+	 */
+	public long maximum() {
+		return minimum + mask;
+	}
+
+	/**
+	 * Checks that a whole chunk fits in a single non-negative long code.
+	 *
+	 * @return True if the chunks can be packed, false otherwise.
+	 */
+	public boolean packable() {
+		return (long) bits * size <= 63;
+	}
+
+	/**
+	 * Checks that a symbol is in the range supported by the codec.
+	 *
+	 * @param value
+	 *            Symbol value.
+	 *
+	 * @return True if the symbol can be packed, false otherwise.
+	 */
+	public boolean accepts(int value) {
+		long shifted = (long) value - minimum;
+		return shifted >= 0 && shifted <= mask;
+	}
+
+	/**
+	 * Packs a chunk stored contiguously in an array.
+	 *
+	 * @param values
+	 *            Array with symbols.
+	 *
+	 * @param offset
+	 *            Index of the first symbol of the chunk.
+	 *
+	 * @return Packed chunk code.
+	 */
+	public long encode(int[] values, int offset) {
+		long code = 0;
+		for (int i = 0; i < size; i++) {
+			code = (code << bits) | ((values[offset + i] - minimum) & mask);
+		}
+		return code;
+	}
+
+	/**
+	 * Packs a circular window of a sequence.
+	 *
+	 * @param sequence
+	 *            Circular sequence of symbols.
+	 *
+	 * @param length
+	 *            Number of used symbols in the sequence.
+	 *
+	 * @param position
+	 *            Index of the first symbol of the window.
+	 *
+	 * @return Packed chunk code.
+	 */
+	public long window(int[] sequence, int length, int position) {
+		long code = 0;
+		for (int i = 0, j = position % length; i < size; i++) {
+			code = (code << bits) | ((sequence[j] - minimum) & mask);
+			if (++j == length) {
+				j = 0;
+			}
+		}
+		return code;
+	}
+
+	/**
+	 * Slides a packed window one symbol forward. The first symbol of the
+	 * window is dropped and the new symbol is appended at the end.
+	 *
+	 * @param code
+	 *            Packed chunk code of the current window.
+	 *
+	 * @param value
+	 *            Symbol entering the window.
+	 *
+	 * @return Packed chunk code of the next window.
+	 */
+	public long next(long code, int value) {
+		long window = (code << bits) | ((value - minimum) & mask);
+		return window & ((1L << (bits * size)) - 1);
+	}
+
+	/**
+	 * Unpacks a chunk code into an array.
+	 *
+	 * @param code
+	 *            Packed chunk code.
+	 *
+	 * @param values
+	 *            Array for the symbols.
+	 *
+	 * @param offset
+	 *            Index of the first symbol of the chunk.
+	 */
+	public void decode(long code, int[] values, int offset) {
+		for (int i = size - 1; i >= 0; i--) {
+			values[offset + i] = (int) (code & mask) + minimum;
+			code >>>= bits;
+		}
+	}
+
+}
@@ -0,0 +1,270 @@
+/**
+ * Distance between two chunks of symbols with equal sizes. Chunks are read
+ * from flat arrays at given offsets, so no chunk objects are created.
+ *
+ * @author Todor Balabanov
+ */
+interface ChunkDistance {
+
+	/**
+	 * Euclidean distance between the symbols as numbers.
+	 */
+	ChunkDistance EUCLIDEAN = new ChunkDistance() {
+		@Override
+		public double distance(int[] first, int i, int[] second, int j,
+				int size) {
+			/* Squares of the widest differences do not fit in a long. */
+			double distance = 0;
+			for (int k = 0; k < size; k++, i++, j++) {
+				long difference = (long) first[i] - second[j];
+				distance += (double) difference * difference;
+			}
+
+			/* Square root as it is in the Euclidean norm. */
+			return Math.sqrt(distance);
+		}
+	};
+
+	/**
+	 * Number of positions with different symbols.
+	 */
+	ChunkDistance HAMMING = new ChunkDistance() {
+		@Override
+		public double distance(int[] first, int i, int[] second, int j,
+				int size) {
+			int distance = 0;
+			for (int k = 0; k < size; k++, i++, j++) {
+				if (first[i] != second[j]) {
+					distance++;
+				}
+			}
+
+			return distance;
+		}
+	};
+
+	/**
+	 * Edit distance with insertions, deletions and substitutions. It is
+	 * calculated with the bit-parallel algorithm of Myers, where a column of
+	 * the dynamic programming matrix is kept in two 64-bit vectors, so there
+	 * is no memory allocation. Chunks longer than 64 symbols use two rows of
+	 * the matrix, which are reused by each thread.
+	 */
+	ChunkDistance LEVENSHTEIN = new ChunkDistance() {
+		/**
+		 * Two rows of the matrix for each thread.
+		 */
+		private final ThreadLocal<int[][]> matrix = new ThreadLocal<int[][]>() {
+			@Override
+			protected int[][] initialValue() {
+				return new int[][]{{}, {}};
+			}
+		};
+
+		@Override
+		public double distance(int[] first, int i, int[] second, int j,
+				int size) {
+			if (size > Long.SIZE) {
+				return rows(first, i, second, j, size);
+			}
+			if (size == 0) {
+				return 0;
+			}
+
+			long last = 1L << (size - 1);
+			long positive = -1L;
+			long negative = 0L;
+			int score = size;
+			for (int column = 0; column < size; column++) {
+				/* Positions of the current symbol in the first chunk. */
+				long equal = 0L;
+				int symbol = second[j + column];
+				for (int k = size - 1; k >= 0; k--) {
+					equal = (equal << 1) | (first[i + k] == symbol ? 1L : 0L);
+				}
+
+				long vertical = equal | negative;
+				long horizontal = (((equal & positive) + positive) ^ positive)
+						| equal;
+				long up = negative | ~(horizontal | positive);
+				long down = positive & horizontal;
+
+				if ((up & last) != 0) {
+					score++;
+				}
+				if ((down & last) != 0) {
+					score--;
+				}
+
+				/* The first row grows by one in each column. */
+				up = (up << 1) | 1L;
+				down = down << 1;
+				positive = down | ~(vertical | up);
+				negative = up & vertical;
+			}
+
+			return score;
+		}
+
+		/**
+		 * Edit distance by two rows of the dynamic programming matrix.
+		 */
+		private double rows(int[] first, int i, int[] second, int j,
+				int size) {
+			int[][] buffers = matrix.get();
+			if (buffers[0].length < size + 1) {
+				buffers[0] = new int[size + 1];
+				buffers[1] = new int[size + 1];
+			}
+			int[] previous = buffers[0];
+			int[] current = buffers[1];
+			for (int k = 0; k <= size; k++) {
+				previous[k] = k;
+			}
+
+			for (int a = 1; a <= size; a++) {
+				current[0] = a;
+				for (int b = 1; b <= size; b++) {
+					int cost = (first[i + a - 1] == second[j + b - 1]) ? 0 : 1;
+					current[b] = Math.min(previous[b - 1] + cost,
+							Math.min(previous[b], current[b - 1]) + 1);
+				}
+
+				int[] swap = previous;
+				previous = current;
+				current = swap;
+			}
+
+			return previous[size];
+		}
+	};
+
+	/**
+	 * Creates a distance of symbols placed on a circle, like the symbols on a
+	 * reel. The difference of two symbols is the shorter way around the
+	 * circle and the differences of all positions are summed.
+	 *
+	 * @param symbols
+	 *            Number of symbols on the circle.
+	 *
+	 * @return Circular symbol distance.
+	 */
+	static ChunkDistance circular(final int symbols) {
+		if (symbols <= 0) {
+			throw new RuntimeException(
+					"Number of symbols should be greater than zero!");
+		}
+
+		return new ChunkDistance() {
+			@Override
+			public double distance(int[] first, int i, int[] second, int j,
+					int size) {
+				long distance = 0;
+				for (int k = 0; k < size; k++, i++, j++) {
+					int difference = Math.floorMod((long) first[i] - second[j],
+							symbols);
+					distance += Math.min(difference, symbols - difference);
+				}
+
+				return distance;
+			}
+		};
+	}
+
+	/**
+	 * Creates the Euclidean distance with SIMD kernels, if the Vector API
+	 * module is available.
+	 *
+	 * @return Vectorized or scalar Euclidean distance.
+	 */
+	static ChunkDistance vector() {
+		try {
+			return (ChunkDistance) Class.forName("VectorEuclidean")
+					.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError exception) {
+			return EUCLIDEAN;
+		}
+	}
+
+	/**
+	 * Selects a distance by name. The names are euclidean, vector (Euclidean
+	 * with SIMD kernels), hamming, levenshtein and circular, followed by a
+	 * colon and the number of symbols.
+	 *
+	 * @param name
+	 *            Name of the distance.
+	 *
+	 * @return Chunks distance.
+	 */
+	static ChunkDistance of(String name) {
+		String[] parts = name.trim().toLowerCase().split(":");
+
+		if (parts[0].equals("euclidean") == true) {
+			return EUCLIDEAN;
+		}
+		if (parts[0].equals("vector") == true) {
+			return vector();
+		}
+		if (parts[0].equals("hamming") == true) {
+			return HAMMING;
+		}
+		if (parts[0].equals("levenshtein") == true) {
+			return LEVENSHTEIN;
+		}
+		if (parts[0].equals("circular") == true && parts.length == 2) {
+			return circular(Integer.parseInt(parts[1]));
+		}
+
+		throw new RuntimeException("Unknown chunks distance " + name + "!");
+	}
+
+	/**
+	 * Distance between two chunks.
+	 *
+	 * @param first
+	 *            Symbols of the first chunk.
+	 *
+	 * @param i
+	 *            Offset of the first chunk.
+	 *
+	 * @param second
+	 *            Symbols of the second chunk.
+	 *
+	 * @param j
+	 *            Offset of the second chunk.
+	 *
+	 * @param size
+	 *            Number of symbols in each chunk.
+	 *
+	 * @return Distance between the chunks.
+	 */
+	double distance(int[] first, int i, int[] second, int j, int size);
+
+	/**
+	 * Sum of the distances between the chunks at the same places of two flat
+	 * chunks lists.
+	 *
+	 * @param first
+	 *            Symbols of the first chunks.
+	 *
+	 * @param second
+	 *            Symbols of the second chunks.
+	 *
+	 * @param count
+	 *            Number of chunks in each list.
+	 *
+	 * @param size
+	 *            Number of symbols in each chunk.
+	 *
+	 * @return Sum of the distances.
+	 */
+	default double total(int[] first, int[] second, int count, int size) {
+		double result = 0;
+		for (int c = 0, offset = 0; c < count; c++, offset += size) {
+			result += distance(first, offset, second, offset, size);
+		}
+
+		return result;
+	}
+
+}
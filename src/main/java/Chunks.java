@@ -0,0 +1,313 @@
+import java.util.Arrays;
+
+/**
+ * Equally sized sequence chunks stored in a single flat array of primitives.
+ * The chunk with index i takes the values from i*size to (i+1)*size-1.
+ *
+ * @author Todor Balabanov
+ */
+class Chunks {
+
+	/**
+	 * Number of symbols in a single chunk.
+	 */
+	private int size = 0;
+
+	/**
+	 * Number of chunks stored.
+	 */
+	private int count = 0;
+
+	/**
+	 * Flat storage of the chunks values.
+	 */
+	private int[] values = {};
+
+	/**
+	 * Buffer of packed chunks used during sorting.
+	 */
+	private long[] codes = {};
+
+	/**
+	 * Codec of the last sorting. It is created again only when a symbol is
+	 * out of its range or the chunk size is changed.
+	 */
+	private ChunkCodec codec = null;
+
+	/**
+	 * Buffers of the chunk indices used during sorting of not packable
+	 * chunks.
+	 */
+	private int[] order = {}, merged = {};
+
+	/**
+	 * Copy of the values used during sorting of not packable chunks.
+	 */
+	private int[] unsorted = {};
+
+	/**
+	 * Constructor without parameters.
+	 */
+	public Chunks() {
+		super();
+	}
+
+	/**
+	 * Constructor with all parameters.
+	 *
+	 * @param count
+	 *            Number of chunks.
+	 *
+	 * @param size
+	 *            Number of symbols in a single chunk.
+	 */
+	public Chunks(int count, int size) {
+		super();
+		resize(count, size);
+	}
+
+	/**
+	 * Changes the number and the size of the chunks. The storage is reused
+	 * when it is big enough.
+	 *
+	 * @param count
+	 *            Number of chunks.
+	 *
+	 * @param size
+	 *            Number of symbols in a single chunk.
+	 */
+	public void resize(int count, int size) {
+		if (count < 0 || size < 0) {
+			throw new RuntimeException(
+					"Chunks count and size should not be negative!");
+		}
+
+		if (values.length < count * size) {
+			values = new int[count * size];
+		}
+
+		this.count = count;
+		this.size = size;
+	}
+
+	/**
+	 * Number of symbols in a single chunk getter.
+	 *
+	 * @return Chunk size.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Number of chunks getter.
+	 *
+	 * @return Chunks count.
+	 */
+	public int count() {
+		return count;
+	}
+
+	/**
+	 * Flat storage getter. The array can be longer than count*size.
+	 *
+	 * @return Chunks values.
+	 */
+	public int[] values() {
+		return values;
+	}
+
+	/**
+	 * Single symbol getter.
+	 *
+	 * @param chunk
+	 *            Index of the chunk.
+	 *
+	 * @param index
+	 *            Index of the symbol in the chunk.
+	 *
+	 * @return Symbol value.
+	 */
+	public int get(int chunk, int index) {
+		return values[chunk * size + index];
+	}
+
+	/**
+	 * Single symbol setter.
+	 *
+	 * @param chunk
+	 *            Index of the chunk.
+	 *
+	 * @param index
+	 *            Index of the symbol in the chunk.
+	 *
+	 * @param value
+	 *            Symbol value.
+	 */
+	public void set(int chunk, int index, int value) {
+		values[chunk * size + index] = value;
+	}
+
+	/**
+	 * Copies a circular window of a sequence as a chunk.
+	 *
+	 * @param chunk
+	 *            Index of the chunk.
+	 *
+	 * @param sequence
+	 *            Circular sequence of symbols.
+	 *
+	 * @param length
+	 *            Number of used symbols in the sequence.
+	 *
+	 * @param position
+	 *            Index of the first symbol of the window.
+	 */
+	public void window(int chunk, int[] sequence, int length, int position) {
+		for (int k = 0, i = chunk * size, j = position; k < size; k++, i++) {
+			values[i] = sequence[j];
+			if (++j == length) {
+				j = 0;
+			}
+		}
+	}
+
+	/**
+	 * Sorts the chunks in lexicographic order. When the chunks fit in long
+	 * codes they are packed, sorted as primitives and unpacked back.
+	 */
+	public void sort() {
+		int total = count * size;
+		if (count < 2 || size == 0) {
+			return;
+		}
+
+		/* The codec of the previous sorting is reused, if it fits. */
+		if (codec == null || codec.size() != size
+				|| accepts(codec, total) == false) {
+			codec = ChunkCodec.of(values, total, size);
+		}
+
+		if (codec.packable() == true) {
+			if (codes.length < count) {
+				codes = new long[count];
+			}
+			for (int i = 0; i < count; i++) {
+				codes[i] = codec.encode(values, i * size);
+			}
+			Arrays.sort(codes, 0, count);
+			for (int i = 0; i < count; i++) {
+				codec.decode(codes[i], values, i * size);
+			}
+			return;
+		}
+
+		/* Symbols range is too wide for packing. */
+		if (order.length < count) {
+			order = new int[count];
+			merged = new int[count];
+		}
+		if (unsorted.length < total) {
+			unsorted = new int[total];
+		}
+		for (int i = 0; i < count; i++) {
+			order[i] = i;
+		}
+		System.arraycopy(values, 0, unsorted, 0, total);
+		sort(0, count);
+		for (int i = 0; i < count; i++) {
+			System.arraycopy(unsorted, order[i] * size, values, i * size, size);
+		}
+	}
+
+	/**
+	 * Checks that all symbols are in the range of a codec.
+	 *
+	 * @param codec
+	 *            Codec to be checked.
+	 *
+	 * @param total
+	 *            Number of used values.
+	 *
+	 * @return True if all symbols can be packed.
+	 */
+	private boolean accepts(ChunkCodec codec, int total) {
+		for (int i = 0; i < total; i++) {
+			if (codec.accepts(values[i]) == false) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Stable merge sort of the chunk indices without boxing.
+	 *
+	 * @param from
+	 *            The first index (inclusive).
+	 *
+	 * @param to
+	 *            The last index (exclusive).
+	 */
+	private void sort(int from, int to) {
+		if (to - from < 2) {
+			return;
+		}
+
+		int middle = (from + to) >>> 1;
+		sort(from, middle);
+		sort(middle, to);
+
+		int i = from, j = middle, k = from;
+		while (i < middle && j < to) {
+			merged[k++] = (compare(order[j], order[i]) < 0)
+					? order[j++]
+					: order[i++];
+		}
+		while (i < middle) {
+			merged[k++] = order[i++];
+		}
+		while (j < to) {
+			merged[k++] = order[j++];
+		}
+		System.arraycopy(merged, from, order, from, to - from);
+	}
+
+	/**
+	 * Compares two chunks of the unsorted copy lexicographically.
+	 *
+	 * @param first
+	 *            Index of the first chunk.
+	 *
+	 * @param second
+	 *            Index of the second chunk.
+	 *
+	 * @return Negative, zero or positive as in a comparator.
+	 */
+	private int compare(int first, int second) {
+		for (int i = first * size, j = second * size, k = 0; k < size; i++, j++, k++) {
+			if (unsorted[i] != unsorted[j]) {
+				return Integer.compare(unsorted[i], unsorted[j]);
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("[");
+		for (int i = 0; i < count; i++) {
+			if (i > 0) {
+				result.append(", ");
+			}
+			result.append(Arrays.toString(
+					Arrays.copyOfRange(values, i * size, (i + 1) * size)));
+		}
+		return result.append("]").toString();
+	}
+
+}
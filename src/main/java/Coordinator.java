@@ -0,0 +1,412 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coordinator of the island nodes in other processes. Nodes connect over TCP
+ * and each reel is sent to all of them. Every node evolves its own islands
+ * for the reel and sends the migrants of its first island to the
+ * coordinator, which relays them to the neighbour nodes. The best solution
+ * of each node is sent back and the best of all nodes is reported.
+ *
+ * Messages start with a type byte. Reels are sent with their identifier, the
+ * seed and the symbols. Migrants are sent with the reel identifier in the
+ * compact chromosome form and the results with the full chromosome form.
+ *
+ * @author Todor Balabanov
+ */
+class Coordinator implements Closeable {
+
+	/**
+	 * Magic number of the greeting of a node (NODE in ASCII).
+	 */
+	static final int MAGIC = 0x4E4F4445;
+
+	/**
+	 * Version of the protocol.
+	 */
+	static final byte VERSION = 1;
+
+	/**
+	 * Reel to be reconstructed (coordinator to node).
+	 */
+	static final byte REEL = 1;
+
+	/**
+	 * Migrant of a reel (in both directions).
+	 */
+	static final byte MIGRANT = 2;
+
+	/**
+	 * The best solution of a node for a reel (node to coordinator).
+	 */
+	static final byte RESULT = 3;
+
+	/**
+	 * There are no more reels (coordinator to node).
+	 */
+	static final byte DONE = 4;
+
+	/**
+	 * Connection with a node.
+	 */
+	private static class Connection {
+		/**
+		 * Socket of the node.
+		 */
+		final Socket socket;
+
+		/**
+		 * Messages from the node.
+		 */
+		final DataInputStream in;
+
+		/**
+		 * Messages to the node, written by different threads.
+		 */
+		final DataOutputStream out;
+
+		/**
+		 * Constructor with all parameters.
+		 *
+		 * @param socket
+		 *            Socket of the node.
+		 *
+		 * @throws IOException
+		 *             If the streams can not be opened.
+		 */
+		Connection(Socket socket) throws IOException {
+			this.socket = socket;
+			this.in = new DataInputStream(
+					new BufferedInputStream(socket.getInputStream()));
+			this.out = new DataOutputStream(
+					new BufferedOutputStream(socket.getOutputStream()));
+		}
+	}
+
+	/**
+	 * Results of a reel gathered from the nodes.
+	 */
+	private class Gathering {
+		/**
+		 * Identifier of the reel.
+		 */
+		final int id;
+
+		/**
+		 * Reconstruction context of the reel for the report.
+		 */
+		final ReelContext context;
+
+		/**
+		 * Nodes which have not sent their result.
+		 */
+		final boolean[] waiting;
+
+		/**
+		 * Number of the nodes which have not sent their result.
+		 */
+		int remaining;
+
+		/**
+		 * The best result received.
+		 */
+		Chromosome best = null;
+
+		/**
+		 * Report of the reel, when all results are received.
+		 */
+		final CompletableFuture<String> report = new CompletableFuture<String>();
+
+		/**
+		 * Constructor with all parameters.
+		 *
+		 * @param id
+		 *            Identifier of the reel.
+		 *
+		 * @param context
+		 *            Reconstruction context of the reel for the report.
+		 *
+		 * @param nodes
+		 *            Number of the nodes.
+		 */
+		Gathering(int id, ReelContext context, int nodes) {
+			this.id = id;
+			this.context = context;
+			this.waiting = new boolean[nodes];
+			this.remaining = nodes;
+			Arrays.fill(waiting, true);
+		}
+
+		/**
+		 * Records the result of a node or its loss.
+		 *
+		 * @param node
+		 *            Index of the node.
+		 *
+		 * @param result
+		 *            The best solution of the node or null if it is lost.
+		 */
+		synchronized void result(int node, Chromosome result) {
+			if (waiting[node] == false) {
+				return;
+			}
+			waiting[node] = false;
+			remaining--;
+
+			if (result != null
+					&& (best == null || result.fitness() > best.fitness())) {
+				best = result;
+			}
+
+			if (remaining > 0) {
+				return;
+			}
+
+			/* Finished reels do not wait for migrants or lost nodes. */
+			reels.remove(id);
+			if (best == null) {
+				report.completeExceptionally(new RuntimeException(
+						"All nodes of the reel are lost!"));
+			} else {
+				report.complete(Main.report(context, best));
+			}
+		}
+	}
+
+	/**
+	 * Listening socket.
+	 */
+	private final ServerSocket server;
+
+	/**
+	 * Connected nodes.
+	 */
+	private final List<Connection> nodes = new ArrayList<Connection>();
+
+	/**
+	 * Connections between the nodes for the migrants.
+	 */
+	private final Topology topology;
+
+	/**
+	 * Reels in progress by identifier. A reel is removed, when the results
+	 * of all nodes are gathered.
+	 */
+	private final Map<Integer, Gathering> reels = new ConcurrentHashMap<Integer, Gathering>();
+
+	/**
+	 * Identifier of the next reel.
+	 */
+	private final AtomicInteger identifier = new AtomicInteger();
+
+	/**
+	 * Listens on a port and waits for all nodes to connect.
+	 *
+	 * @param port
+	 *            TCP port.
+	 *
+	 * @param count
+	 *            Number of the nodes.
+	 *
+	 * @param topology
+	 *            Connections between the nodes for the migrants.
+	 *
+	 * @throws IOException
+	 *             If the nodes can not be connected.
+	 */
+	public Coordinator(int port, int count, Topology topology)
+			throws IOException {
+		super();
+
+		if (count <= 0) {
+			throw new RuntimeException(
+					"Number of nodes should be greater than zero!");
+		}
+
+		this.topology = topology;
+		this.server = new ServerSocket(port);
+
+		for (int n = 0; n < count; n++) {
+			Connection node = new Connection(server.accept());
+			node.socket.setTcpNoDelay(true);
+			if (node.in.readInt() != MAGIC || node.in.readByte() != VERSION) {
+				node.socket.close();
+				throw new RuntimeException("Unsupported node protocol!");
+			}
+
+			/* The node learns its index and the number of the nodes. */
+			node.out.writeInt(n);
+			node.out.writeInt(count);
+			node.out.flush();
+			nodes.add(node);
+			System.err.println("=== NODE " + n + " "
+					+ node.socket.getRemoteSocketAddress() + " ===");
+		}
+
+		for (int n = 0; n < count; n++) {
+			final int index = n;
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					read(index);
+				}
+			}, "node-" + n);
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	/**
+	 * Sends a reel to all nodes.
+	 *
+	 * @param reel
+	 *            Single reel as an array of numbers.
+	 *
+	 * @param seed
+	 *            Seed of the reel, the nodes split their own numbers from it.
+	 *
+	 * @return Report of the reel, when all nodes have finished.
+	 */
+	public Future<String> submit(int[] reel, long seed) {
+		int id = identifier.getAndIncrement();
+
+		/*
+		 * The nodes create the same context from the same seed. The report
+		 * does not evaluate anything, so the context needs no cache.
+		 */
+		ReelContext context = Main.initializeContext(reel,
+				new RandomSource(seed));
+		context.cache(null);
+		Gathering gathering = new Gathering(id, context, nodes.size());
+		reels.put(id, gathering);
+
+		for (int n = 0; n < nodes.size(); n++) {
+			Connection node = nodes.get(n);
+			try {
+				synchronized (node.out) {
+					node.out.writeByte(REEL);
+					node.out.writeInt(id);
+					node.out.writeLong(seed);
+					node.out.writeInt(reel.length);
+					for (int value : reel) {
+						node.out.writeInt(value);
+					}
+					node.out.flush();
+				}
+			} catch (IOException exception) {
+				gathering.result(n, null);
+			}
+		}
+
+		return gathering.report;
+	}
+
+	/**
+	 * Reads the messages of a node until its connection is closed.
+	 *
+	 * @param index
+	 *            Index of the node.
+	 */
+	private void read(int index) {
+		DataInputStream in = nodes.get(index).in;
+
+		try {
+			while (true) {
+				byte type = in.readByte();
+				int id = in.readInt();
+
+				if (type == MIGRANT) {
+					relay(index, id, Chromosome.decode(in));
+				} else if (type == RESULT) {
+					Chromosome result = Chromosome.read(in);
+					Gathering gathering = reels.get(id);
+					if (gathering != null) {
+						gathering.result(index, result);
+					}
+				} else {
+					throw new RuntimeException(
+							"Unknown message type " + type + "!");
+				}
+			}
+		} catch (EOFException exception) {
+			/* The node has closed its connection. */
+		} catch (IOException | RuntimeException exception) {
+			System.err.println(exception);
+		}
+
+		/* Only the reels in progress wait for a lost node. */
+		for (Gathering gathering : reels.values()) {
+			gathering.result(index, null);
+		}
+	}
+
+	/**
+	 * Sends a migrant to the neighbours of a node.
+	 *
+	 * @param index
+	 *            Index of the sending node.
+	 *
+	 * @param id
+	 *            Identifier of the reel.
+	 *
+	 * @param migrant
+	 *            Migrant of the node.
+	 */
+	private void relay(int index, int id, Chromosome migrant) {
+		for (int neighbour : topology.neighbours(index, nodes.size())) {
+			if (neighbour == index) {
+				continue;
+			}
+
+			Connection node = nodes.get(neighbour);
+			try {
+				synchronized (node.out) {
+					node.out.writeByte(MIGRANT);
+					node.out.writeInt(id);
+					migrant.encode(node.out);
+					node.out.flush();
+				}
+			} catch (IOException exception) {
+				/* Lost nodes are found by their readers. */
+			}
+		}
+	}
+
+	/**
+	 * Tells the nodes there are no more reels and closes the connections.
+	 */
+	@Override
+	public void close() throws IOException {
+		for (Connection node : nodes) {
+			try {
+				synchronized (node.out) {
+					node.out.writeByte(DONE);
+					node.out.flush();
+				}
+			} catch (IOException exception) {
+				/* The node is already lost. */
+			}
+		}
+
+		for (Connection node : nodes) {
+			node.socket.shutdownOutput();
+		}
+		server.close();
+	}
+
+}
@@ -0,0 +1,108 @@
+/**
+ * Divergence between the chunks distribution of the original sequence and
+ * the chunks distribution of a candidate sequence. The divergence is a sum of
+ * terms for each chunk, which is finalized after the summation.
+ *
+ * @author Todor Balabanov
+ */
+interface Divergence {
+
+	/**
+	 * Sum of the absolute differences between the probabilities.
+	 */
+	Divergence L1 = new Divergence() {
+		@Override
+		public double term(double expected, double observed) {
+			return Math.abs(expected - observed);
+		}
+
+		@Override
+		public double total(double sum) {
+			return sum;
+		}
+	};
+
+	/**
+	 * Euclidean distance between the probability vectors.
+	 */
+	Divergence L2 = new Divergence() {
+		@Override
+		public double term(double expected, double observed) {
+			return (expected - observed) * (expected - observed);
+		}
+
+		@Override
+		public double total(double sum) {
+			return Math.sqrt(Math.max(0, sum));
+		}
+	};
+
+	/**
+	 * Symmetric chi-square distance. It is defined also for chunks which are
+	 * missing in one of the distributions.
+	 */
+	Divergence CHI_SQUARE = new Divergence() {
+		@Override
+		public double term(double expected, double observed) {
+			if (expected + observed <= 0) {
+				return 0;
+			}
+
+			return (expected - observed) * (expected - observed)
+					/ (expected + observed);
+		}
+
+		@Override
+		public double total(double sum) {
+			return sum;
+		}
+	};
+
+	/**
+	 * Selects a divergence by name. The names are l1, l2 and chi2.
+	 *
+	 * @param name
+	 *            Name of the divergence.
+	 *
+	 * @return Divergence between the chunks distributions.
+	 */
+	static Divergence of(String name) {
+		String value = name.trim().toLowerCase();
+
+		if (value.equals("l1") == true) {
+			return L1;
+		}
+		if (value.equals("l2") == true) {
+			return L2;
+		}
+		if (value.equals("chi2") == true) {
+			return CHI_SQUARE;
+		}
+
+		throw new RuntimeException("Unknown divergence " + name + "!");
+	}
+
+	/**
+	 * Divergence term of a single chunk.
+	 *
+	 * @param expected
+	 *            Probability of the chunk in the original sequence.
+	 *
+	 * @param observed
+	 *            Probability of the chunk in the candidate sequence.
+	 *
+	 * @return Contribution of the chunk to the divergence.
+	 */
+	double term(double expected, double observed);
+
+	/**
+	 * Finalizes the sum of all terms.
+	 *
+	 * @param sum
+	 *            Sum of the terms of all chunks.
+	 *
+	 * @return Divergence value.
+	 */
+	double total(double sum);
+
+}
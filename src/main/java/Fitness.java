@@ -0,0 +1,47 @@
+/**
+ * Fitness evaluation engine. It calculates how far a candidate chromosome is
+ * from the original chromosome.
+ *
+ * @author Todor Balabanov
+ */
+interface Fitness {
+
+	/**
+	 * Selects a fitness evaluation engine by name. The name sampling selects
+	 * the random sampling of chunks and the names of the divergences (l1, l2
+	 * or chi2) select the deterministic windows fitness.
+	 *
+	 * @param name
+	 *            Name of the engine.
+	 *
+	 * @param metric
+	 *            Distance between two chunks of the sampling engine.
+	 *
+	 * @return Fitness evaluation engine.
+	 */
+	static Fitness of(String name, ChunkDistance metric) {
+		if (name.trim().equalsIgnoreCase("sampling") == true) {
+			return new SamplingFitness(metric);
+		}
+
+		return new WindowsFitness(Divergence.of(name));
+	}
+
+	/**
+	 * Calculates the distance between a candidate and the original.
+	 *
+	 * @param candidate
+	 *            Chromosome to be evaluated.
+	 *
+	 * @param context
+	 *            Reconstruction context with the original chromosome.
+	 *
+	 * @param random
+	 *            Source of pseudo-random numbers for random evaluations.
+	 *
+	 * @return Distance calculated, where zero is the best possible value.
+	 */
+	double distance(Chromosome candidate, ReelContext context,
+			RandomSource random);
+
+}
@@ -0,0 +1,228 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded memoization of the fitness evaluation of a single reel. Reels are
+ * circular, so all rotations of a candidate share a single cache entry keyed
+ * by the fingerprint of the canonical rotation. The least recently used
+ * entries are evicted when the cache is full.
+ *
+ * Each reel context has its own cache, so the reels do not wait for each
+ * other. Only the deterministic windows fitness is memoized, because a
+ * remembered random sample would be reused for all rotation equivalent
+ * candidates. On a hit the windows counts of the candidate are not
+ * calculated. Entries of an older version of the reel context are not used.
+ *
+ * @author Todor Balabanov
+ */
+class FitnessCache implements Fitness {
+
+	/**
+	 * Number of evaluations found in the cache.
+	 */
+	private final LongAdder hits = new LongAdder();
+
+	/**
+	 * Number of evaluations done by the engine.
+	 */
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Cached distance of a canonical sequence.
+	 */
+	private static class Entry {
+		/**
+		 * Version of the reconstruction context.
+		 */
+		final long version;
+
+		/**
+		 * Canonical rotation of the evaluated sequence.
+		 */
+		final int[] canonical;
+
+		/**
+		 * Distance calculated.
+		 */
+		final double distance;
+
+		/**
+		 * Constructor with all parameters.
+		 *
+		 * @param version
+		 *            Version of the reconstruction context.
+		 *
+		 * @param canonical
+		 *            Canonical rotation of the evaluated sequence.
+		 *
+		 * @param distance
+		 *            Distance calculated.
+		 */
+		Entry(long version, int[] canonical, double distance) {
+			this.version = version;
+			this.canonical = canonical;
+			this.distance = distance;
+		}
+	}
+
+	/**
+	 * Evaluation engine used on cache misses.
+	 */
+	private final WindowsFitness fitness;
+
+	/**
+	 * Entries in order of their usage.
+	 */
+	private final LinkedHashMap<Long, Entry> entries;
+
+	/**
+	 * Constructor with all parameters.
+	 *
+	 * @param fitness
+	 *            Deterministic evaluation engine used on cache misses.
+	 *
+	 * @param capacity
+	 *            Maximum number of cached entries.
+	 */
+	public FitnessCache(WindowsFitness fitness, final int capacity) {
+		super();
+
+		if (capacity <= 0) {
+			throw new RuntimeException("Cache capacity should be positive!");
+		}
+
+		this.fitness = fitness;
+		this.entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double distance(Chromosome candidate, ReelContext context,
+			RandomSource random) {
+		Long key = Rotations.fingerprint(candidate.genes(), candidate.length());
+
+		Entry entry;
+		synchronized (entries) {
+			entry = entries.get(key);
+		}
+
+		/* Fingerprint collisions are resolved by full comparison. */
+		if (entry != null && entry.version == context.version() && Rotations
+				.equivalent(entry.canonical, candidate.genes(),
+						candidate.length()) == true) {
+			hits.increment();
+
+			/* Counts of the windows are calculated again when needed. */
+			candidate.divergence(Double.NaN);
+			return entry.distance;
+		}
+
+		misses.increment();
+		double distance = fitness.distance(candidate, context, random);
+		entry = new Entry(context.version(),
+				Rotations.rotate(candidate.genes(), candidate.length()),
+				distance);
+		synchronized (entries) {
+			entries.put(key, entry);
+		}
+
+		return distance;
+	}
+
+	/**
+	 * Writes the counters and the entries from the least to the most
+	 * recently used.
+	 *
+	 * @param out
+	 *            Binary output.
+	 *
+	 * @throws IOException
+	 *             If the entries can not be written.
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeLong(hits.sum());
+		out.writeLong(misses.sum());
+
+		synchronized (entries) {
+			out.writeInt(entries.size());
+			for (Entry entry : entries.values()) {
+				out.writeLong(entry.version);
+				out.writeDouble(entry.distance);
+				out.writeInt(entry.canonical.length);
+				for (int value : entry.canonical) {
+					out.writeInt(value);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the counters and the entries written before. Only the entries of
+	 * the current version of the context are kept.
+	 *
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 *
+	 * @param in
+	 *            Binary input.
+	 *
+	 * @throws IOException
+	 *             If the entries can not be read.
+	 */
+	public void read(ReelContext context, DataInput in) throws IOException {
+		hits.add(in.readLong());
+		misses.add(in.readLong());
+
+		for (int count = in.readInt(); count > 0; count--) {
+			long version = in.readLong();
+			double distance = in.readDouble();
+			int[] canonical = new int[in.readInt()];
+			for (int i = 0; i < canonical.length; i++) {
+				canonical[i] = in.readInt();
+			}
+
+			if (version != context.version()) {
+				continue;
+			}
+
+			synchronized (entries) {
+				entries.put(Rotations.fingerprint(canonical, canonical.length),
+						new Entry(version, canonical, distance));
+			}
+		}
+	}
+
+	/**
+	 * Number of the cached entries getter.
+	 *
+	 * @return Number of the entries.
+	 */
+	public int size() {
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return "FitnessCache [hits=" + hits.sum() + ", misses="
+				+ misses.sum() + ", size=" + size() + "]";
+	}
+
+}
@@ -0,0 +1,68 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of a reported generation. Events are recorded only
+ * when a flight recording is running.
+ *
+ * @author Todor Balabanov
+ */
+@Name("reels.Generation")
+@Label("Generation")
+@Category("Reels Reconstruction")
+@Description("Convergence and performance of a reel reconstruction")
+class GenerationEvent extends Event {
+
+	@Label("Run")
+	int run;
+
+	@Label("Generation")
+	long generation;
+
+	@Label("Evaluations")
+	long evaluations;
+
+	@Label("Evaluations per Second")
+	double rate;
+
+	@Label("Children")
+	long children;
+
+	@Label("Acceptance Rate")
+	double acceptance;
+
+	@Label("Best Fitness")
+	double best;
+
+	@Label("Mean Fitness")
+	double mean;
+
+	@Label("Worst Fitness")
+	double worst;
+
+	@Label("Diversity")
+	@Description("Share of the individuals with distinct rotations")
+	double diversity;
+
+	@Label("Histogram Time (ms)")
+	double histogram;
+
+	@Label("Sampling Time (ms)")
+	double sampling;
+
+	@Label("Distance Time (ms)")
+	double distance;
+
+	@Label("Crossover Time (ms)")
+	double crossover;
+
+	@Label("Mutation Time (ms)")
+	double mutation;
+
+	@Label("Selection Time (ms)")
+	double selection;
+
+}
@@ -0,0 +1,317 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Histogram of packed chunk codes. Codes are kept in an open addressing hash
+ * table and their counters are stored in order of the first appearance. An
+ * index of how many codes have each count is maintained, so the count of the
+ * least probable code is available without scanning the histogram.
+ *
+ * @author Todor Balabanov
+ */
+class Histogram {
+
+	/**
+	 * Codes in order of their first appearance.
+	 */
+	private long[] codes = new long[16];
+
+	/**
+	 * Counters of the codes in order of their first appearance.
+	 */
+	private int[] counts = new int[16];
+
+	/**
+	 * Hash table with indices of the codes plus one (zero for empty slots).
+	 */
+	private int[] table = new int[32];
+
+	/**
+	 * Number of codes with a given count (count of counts).
+	 */
+	private int[] frequencies = new int[16];
+
+	/**
+	 * Number of different codes stored.
+	 */
+	private int distinct = 0;
+
+	/**
+	 * Sum of all counters.
+	 */
+	private long total = 0;
+
+	/**
+	 * The smallest positive counter.
+	 */
+	private int least = 0;
+
+	/**
+	 * Constructor without parameters.
+	 */
+	public Histogram() {
+		super();
+	}
+
+	/**
+	 * Hash table slot for a code.
+	 *
+	 * @param code
+	 *            Packed chunk code.
+	 *
+	 * @return Slot index.
+	 */
+	private int slot(long code) {
+		long hash = code * 0x9E3779B97F4A7C15L;
+		int mask = table.length - 1;
+		int slot = (int) (hash >>> 32) & mask;
+		while (table[slot] != 0 && codes[table[slot] - 1] != code) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Doubles the hash table and rehashes all codes.
+	 */
+	private void grow() {
+		table = new int[table.length * 2];
+		codes = Arrays.copyOf(codes, codes.length * 2);
+		counts = Arrays.copyOf(counts, counts.length * 2);
+		for (int i = 0; i < distinct; i++) {
+			table[slot(codes[i])] = i + 1;
+		}
+	}
+
+	/**
+	 * Moves a code from one count to another in the count of counts index.
+	 *
+	 * @param from
+	 *            Previous count.
+	 *
+	 * @param to
+	 *            New count.
+	 */
+	private void move(int from, int to) {
+		if (to >= frequencies.length) {
+			frequencies = Arrays.copyOf(frequencies,
+					Math.max(to + 1, frequencies.length * 2));
+		}
+
+		frequencies[from]--;
+		frequencies[to]++;
+
+		/* Update the least probable count without a full scan. */
+		if (to > 0 && (to < least || least == 0)) {
+			least = to;
+		} else if (from == least && frequencies[from] == 0) {
+			least = 0;
+			for (int c = from + 1; c < frequencies.length; c++) {
+				if (frequencies[c] > 0) {
+					least = c;
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Index of a code in order of appearance.
+	 *
+	 * @param code
+	 *            Packed chunk code.
+	 *
+	 * @return Index of the code or minus one if the code is not present.
+	 */
+	public int indexOf(long code) {
+		return table[slot(code)] - 1;
+	}
+
+	/**
+	 * Counter of a code.
+	 *
+	 * @param code
+	 *            Packed chunk code.
+	 *
+	 * @return How many times the code was added.
+	 */
+	public int get(long code) {
+		int index = table[slot(code)] - 1;
+		return index < 0 ? 0 : counts[index];
+	}
+
+	/**
+	 * Increases the counter of a code with one.
+	 *
+	 * @param code
+	 *            Packed chunk code.
+	 *
+	 * @return Index of the code in order of appearance.
+	 */
+	public int add(long code) {
+		return add(code, 1);
+	}
+
+	/**
+	 * Changes the counter of a code. Counters can not become negative.
+	 *
+	 * @param code
+	 *            Packed chunk code.
+	 *
+	 * @param amount
+	 *            Change of the counter.
+	 *
+	 * @return Index of the code in order of appearance.
+	 */
+	public int add(long code, int amount) {
+		int slot = slot(code);
+		int index = table[slot] - 1;
+
+		/* The code appears for the first time. */
+		if (index < 0) {
+			if (amount < 0) {
+				throw new RuntimeException(
+						"Histogram counters should not be negative!");
+			}
+
+			if (2 * (distinct + 1) > table.length) {
+				grow();
+				slot = slot(code);
+			}
+
+			index = distinct++;
+			table[slot] = index + 1;
+			codes[index] = code;
+			counts[index] = 0;
+			frequencies[0]++;
+		}
+
+		int count = counts[index] + amount;
+		if (count < 0) {
+			throw new RuntimeException(
+					"Histogram counters should not be negative!");
+		}
+
+		move(counts[index], count);
+		counts[index] = count;
+		total += amount;
+
+		return index;
+	}
+
+	/**
+	 * Writes the codes and their counters in order of appearance.
+	 *
+	 * @param out
+	 *            Binary output.
+	 *
+	 * @throws IOException
+	 *             If the histogram can not be written.
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(distinct);
+		for (int i = 0; i < distinct; i++) {
+			out.writeLong(codes[i]);
+			out.writeInt(counts[i]);
+		}
+	}
+
+	/**
+	 * Reads a histogram written before. The order of appearance is kept.
+	 *
+	 * @param in
+	 *            Binary input.
+	 *
+	 * @return Histogram with the stored counters.
+	 *
+	 * @throws IOException
+	 *             If the histogram can not be read.
+	 */
+	public static Histogram read(DataInput in) throws IOException {
+		Histogram result = new Histogram();
+		for (int i = in.readInt(); i > 0; i--) {
+			result.add(in.readLong(), in.readInt());
+		}
+		return result;
+	}
+
+	/**
+	 * Removes all codes, but keeps the allocated memory.
+	 */
+	public void clear() {
+		Arrays.fill(table, 0);
+		Arrays.fill(frequencies, 0);
+		distinct = 0;
+		total = 0;
+		least = 0;
+	}
+
+	/**
+	 * Number of different codes getter.
+	 *
+	 * @return Number of codes added at least once.
+	 */
+	public int distinct() {
+		return distinct;
+	}
+
+	/**
+	 * Code getter.
+	 *
+	 * @param index
+	 *            Index of the code in order of appearance.
+	 *
+	 * @return Packed chunk code.
+	 */
+	public long code(int index) {
+		return codes[index];
+	}
+
+	/**
+	 * Counter getter.
+	 *
+	 * @param index
+	 *            Index of the code in order of appearance.
+	 *
+	 * @return Counter of the code.
+	 */
+	public int count(int index) {
+		return counts[index];
+	}
+
+	/**
+	 * Sum of all counters getter.
+	 *
+	 * @return Total number of added codes.
+	 */
+	public long total() {
+		return total;
+	}
+
+	/**
+	 * The least probable code count getter.
+	 *
+	 * @return The smallest positive counter or zero for an empty histogram.
+	 */
+	public int least() {
+		return least;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("{");
+		for (int i = 0; i < distinct; i++) {
+			if (i > 0) {
+				result.append(", ");
+			}
+			result.append(codes[i]).append('=').append(counts[i]);
+		}
+		return result.append("}").toString();
+	}
+
+}
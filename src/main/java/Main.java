@@ -1,6 +1,19 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Application single entry point class.
@@ -9,25 +22,43 @@ import java.util.Random;
  */
 public class Main {
 	/**
-	 * Pseudo-random number generator.
+	 * Seed of the pseudo-random numbers. The same seed gives the same results
+	 * and it can be given with the seed system property.
 	 */
-	private static final Random PRNG = new Random();
+	private static final long SEED = Long.getLong("seed", System.nanoTime());
+
+	/**
+	 * Fork/join pool for the parallel parts of the genetic algorithm.
+	 */
+	private static final ForkJoinPool POOL = new ForkJoinPool();
+
+	/**
+	 * Maximum number of reels reconstructed at the same time.
+	 */
+	private static final int PARALLEL_REELS = Runtime.getRuntime()
+			.availableProcessors();
 
 	/**
 	 * Chunk size is related with the size of the visible part of the sequence.
 	 */
-	private static final int CHUNKS_SIZE = 3;
+	static final int CHUNKS_SIZE = 3;
 
 	/**
 	 * Genetic algorithm population size.
 	 */
-	private static final int POPULATION_SIZE = 137;
+	static final int POPULATION_SIZE = 137;
+
+	/**
+	 * Number of individuals in the selection tournament. The two strongest
+	 * are parents and the weakest is replaced by the child.
+	 */
+	static final int TOURNAMENT_SIZE = 3;
 
 	/**
 	 * The mutation rate shows the probability for each gene to mutate. Because
 	 * it is a probability it has values from 0 to 1.
 	 */
-	private static final double MUTATION_RATE = 0.005;
+	static final double MUTATION_RATE = 0.005;
 
 	/**
 	 * Number of generations to be created as depth of the recursion.
@@ -42,7 +73,169 @@ public class Main {
 	 * level of about 95% and according to the rules of the normal probability
 	 * distribution.
 	 */
-	private static final int HISTOGRAM_THRESHOLD = 100;
+	static final int HISTOGRAM_THRESHOLD = 100;
+
+	/**
+	 * When the reels are fully known the chunks histogram is built exactly
+	 * from all circular windows instead of random sampling.
+	 */
+	private static final boolean EXACT_HISTOGRAM = true;
+
+	/**
+	 * Maximum number of cached fitness evaluations of a single reel, given
+	 * with the cache system property. Only the windows fitness can be cached
+	 * and by default there is no cache.
+	 */
+	private static final int FITNESS_CACHE_SIZE = Integer.getInteger("cache",
+			0);
+
+	/**
+	 * Distance between the chunks of a candidate and the original. It is
+	 * selected with the distance system property (euclidean, vector, hamming,
+	 * levenshtein or circular:symbols).
+	 */
+	private static final ChunkDistance CHUNK_DISTANCE = ChunkDistance
+			.of(System.getProperty("distance", "euclidean"));
+
+	/**
+	 * Fitness evaluation engine, selected with the fitness system property
+	 * (sampling, l1, l2 or chi2). The windows fitness with a divergence is
+	 * deterministic and it can be used instead of the random sampling of
+	 * chunks. Rotations of already evaluated candidates are taken from the
+	 * cache of the reel, if it is used.
+	 */
+	private static final Fitness ENGINE = Fitness
+			.of(System.getProperty("fitness", "sampling"), CHUNK_DISTANCE);
+
+	/**
+	 * The windows fitness, if it is the engine, otherwise null. With it the
+	 * mutations are point edits evaluated incrementally.
+	 */
+	private static final WindowsFitness WINDOWS = (ENGINE instanceof WindowsFitness)
+			? (WindowsFitness) ENGINE
+			: null;
+
+	/**
+	 * Generation reports are recorded as flight recorder events and they are
+	 * written in the file given with the metrics system property (csv or JSON
+	 * lines).
+	 */
+	private static final MetricsSink METRICS = new MetricsSink(
+			System.getProperty("metrics"));
+
+	/**
+	 * Spin log with the observed windows, given with the observations system
+	 * property (- for the standard input). If it is given, the reels are
+	 * reconstructed online from the observations.
+	 */
+	private static final String OBSERVATIONS = System
+			.getProperty("observations");
+
+	/**
+	 * New reels file, given with the convert system property. If it is
+	 * given, the reels file of the first argument is written in the binary
+	 * format (for the .bin extension) or in the text format, without a
+	 * reconstruction.
+	 */
+	private static final String CONVERT = System.getProperty("convert");
+
+	/**
+	 * Directory of the checkpoints, given with the checkpoints system
+	 * property. Checkpoints are not written if it is not given.
+	 */
+	private static final String CHECKPOINTS = System
+			.getProperty("checkpoints");
+
+	/**
+	 * Evolution continues from the written checkpoints, if the resume system
+	 * property is true.
+	 */
+	private static final boolean RESUME = Boolean.getBoolean("resume");
+
+	/**
+	 * How many generations between two checkpoints.
+	 */
+	private static final long CHECKPOINT_INTERVAL = 100;
+
+	/**
+	 * Genetic algorithm of the reels, given with the algorithm system
+	 * property (simple or hierarchical). Observed reels and island nodes
+	 * always use the simple genetic algorithm.
+	 */
+	private static final String ALGORITHM = System.getProperty("algorithm",
+			"hierarchical");
+
+	/**
+	 * Number of children created and evaluated in parallel in a single step
+	 * of the simple genetic algorithm, given with the batch system property.
+	 * With a single child the evolution is steady-state.
+	 */
+	private static final int BATCH_SIZE = Integer.getInteger("batch", 1);
+
+	/**
+	 * Number of islands of the simple genetic algorithm, given with the
+	 * islands system property. Each island has its own population and with a
+	 * single island there is no migration.
+	 */
+	private static final int ISLANDS = Integer.getInteger("islands", 1);
+
+	/**
+	 * Size of the population of the simple genetic algorithm in direct
+	 * memory, given with the offheap system property. It is used for very
+	 * large populations and with zero the population is on the heap.
+	 */
+	private static final int OFF_HEAP_SIZE = Integer.getInteger("offheap", 0);
+
+	/**
+	 * Number of individuals created by a single task, when a population in
+	 * direct memory is initialized.
+	 */
+	private static final int INITIALIZATION_BLOCK = 1024;
+
+	/**
+	 * Connections between the islands, given with the topology system
+	 * property (ring or full).
+	 */
+	private static final Topology TOPOLOGY = Topology.valueOf(
+			System.getProperty("topology", "ring").toUpperCase());
+
+	/**
+	 * How many generations between two migrations.
+	 */
+	private static final long MIGRATION_INTERVAL = 50;
+
+	/**
+	 * How many of the best individuals an island sends to each neighbour.
+	 */
+	private static final int MIGRANTS = 2;
+
+	/**
+	 * Address of the coordinator (host:port), given with the node system
+	 * property. If it is given, the process is an island node and the reels
+	 * come from the coordinator.
+	 */
+	private static final String NODE = System.getProperty("node");
+
+	/**
+	 * Port of the coordinator, given with the coordinator system property. If
+	 * it is given, the reels are sent to island nodes in other processes.
+	 */
+	private static final Integer COORDINATOR = Integer
+			.getInteger("coordinator");
+
+	/**
+	 * Number of the island nodes waited by the coordinator, given with the
+	 * nodes system property.
+	 */
+	private static final int NODES = Integer.getInteger("nodes", 2);
+
+	/**
+	 * Early end of the evolution, given with the termination system property
+	 * (for example target:0,stagnation:500,evaluations:1e7,seconds:3600).
+	 * By default the evolution ends when the original is found.
+	 */
+	private static final Termination TERMINATION = Termination
+			.of(System.getProperty("termination", "target:0"));
 
 	/**
 	 * How many genetic algorithm generations to be evolved.
@@ -52,7 +245,7 @@ public class Main {
 	/**
 	 * Original sequences which should be reconstructed.
 	 */
-	private static final int[][][] ORIGINAL_STRIPS = {{
+	static final int[][][] ORIGINAL_STRIPS = {{
 			{9, 7, 12, 9, 5, 10, 12, 3, 11, 10, 4, 12, 10, 6, 12, 11, 6, 10, 12,
 					8, 9, 5, 12, 8},
 			{3, 12, 11, 7, 10, 4, 11, 12, 7, 11, 12, 5, 11, 9, 6, 10, 1, 1, 1,
@@ -97,30 +290,78 @@ public class Main {
 							10, 4, 9, 3, 7},},};
 
 	/**
-	 * Creates a population from an original sequence pattern.
+	 * Creates the reconstruction context of the original sequence.
 	 * 
 	 * @param reel
 	 *            Virtual reel as numbers array.
 	 * 
-	 * @param original
-	 *            The chromosome of the original sequence.
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 * 
+	 * @return Reconstruction context with the chromosome of the original
+	 *         sequence.
+	 */
+	static ReelContext initializeContext(int[] reel,
+			RandomSource random) {
+		ReelContext result = (EXACT_HISTOGRAM == true)
+				? ReelContext.exact(reel, CHUNKS_SIZE, HISTOGRAM_THRESHOLD)
+				: ReelContext.sampling(reel, CHUNKS_SIZE, HISTOGRAM_THRESHOLD,
+						random);
+		result.cache(cache());
+
+		return result;
+	}
+
+	/**
+	 * Creates the fitness cache of a reel, if the cache is used.
+	 * 
+	 * @return Empty fitness cache or null.
+	 */
+	private static FitnessCache cache() {
+		if (FITNESS_CACHE_SIZE <= 0) {
+			return null;
+		}
+
+		return new FitnessCache(WINDOWS, FITNESS_CACHE_SIZE);
+	}
+
+	/**
+	 * Fitness evaluation of a reel.
+	 * 
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 * 
+	 * @return The cache of the reel or the evaluation engine.
+	 */
+	private static Fitness fitness(ReelContext context) {
+		FitnessCache cache = context.cache();
+		return (cache != null) ? cache : ENGINE;
+	}
+
+	/**
+	 * Creates a population from an original sequence pattern.
+	 * 
+	 * @param context
+	 *            Reconstruction context of the reel.
 	 * 
 	 * @param size
 	 *            Size of the population.
 	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 * 
 	 * @return Randomly generated population.
 	 */
-	private static List<Chromosome> initializeRandomPopulation(int[] reel,
-			Chromosome original, int size) {
-		List<Chromosome> result = new ArrayList<Chromosome>();
+	static Population initializeRandomPopulation(ReelContext context,
+			int size, RandomSource random) {
+		Population result = new Population(size);
 
 		/* Create random initial chromosomes. */
 		for (int i = 0; i < size; i++) {
-			Chromosome candidate = Chromosome.initializeRandom(original);
+			Chromosome candidate = Chromosome.initializeRandom(context, random);
 
 			/* Evaluate randomly generated chromosome. */
-			candidate.sampling(original);
-			candidate.fitness(-candidate.distance(original));
+			evaluate(candidate, context, random);
 
 			/* Add randomly generated chromosome to the population. */
 			result.add(candidate);
@@ -159,269 +400,1926 @@ public class Main {
 	}
 
 	/**
-	 * Do selection of parents and a child place into the population.
+	 * Evaluates a chromosome against the current target of the reel.
 	 * 
-	 * @param population
-	 *            Current generation as population of individuals.
+	 * Distance is taken with a negative sign because if the candidate
+	 * solution is farther away from the original the solution is worse.
+	 * 
+	 * @param candidate
+	 *            Chromosome to be evaluated.
 	 * 
-	 * @return Selected parents and children as an array of references.
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
 	 */
-	private static Chromosome[] selection(List<Chromosome> population) {
-		Chromosome familiy[] = new Chromosome[3];
-		while (true) {
-			familiy[0] = population.get(PRNG.nextInt(population.size()));
-			familiy[1] = population.get(PRNG.nextInt(population.size()));
-			familiy[2] = population.get(PRNG.nextInt(population.size()));
-
-			/* Parent should be different from the child. */
-			if (familiy[0] == familiy[2]) {
-				continue;
-			}
-
-			/* Parent should be different from the child. */
-			if (familiy[1] == familiy[2]) {
-				continue;
-			}
-
-			/* Parents should be different. */
-			if (familiy[0] == familiy[1]) {
-				continue;
-			}
-
-			/*
-			 * Appointed for a child individual in the genetic algorithm
-			 * population will replace the previous one that is why the weakest
-			 * should be selected.
-			 */
-			if (familiy[2].fitness() > familiy[0].fitness()) {
-				continue;
-			}
-			if (familiy[2].fitness() > familiy[1].fitness()) {
-				continue;
-			}
-
-			/*
-			 * If parents are different from the child, different from each
-			 * other, and the weakest is chosen for population removal go on.
-			 */
-			break;
-		}
-
-		return familiy;
+	private static void evaluate(Chromosome candidate, ReelContext context,
+			RandomSource random) {
+		candidate.fitness(-fitness(context).distance(candidate, context, random));
+		candidate.version(context.version());
 	}
 
 	/**
-	 * A simple form of genetic algorithm.
+	 * Mutates and evaluates a child. The sampled chunks are mutated before
+	 * the evaluation. With the windows fitness the child is evaluated first
+	 * and the mutation is a set of point edits of the sequence, which are
+	 * evaluated incrementally.
 	 * 
-	 * @param reel
-	 *            Single reel as an array of numbers.
+	 * @param child
+	 *            Child after the crossover.
+	 * 
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
 	 */
-	private static void simpleGeneticAlgorithm(int[] reel) {
-		System.err.println("=== OPTIMIZATION START ===");
-		Chromosome original = Chromosome.initializeOriginal(reel, CHUNKS_SIZE,
-				HISTOGRAM_THRESHOLD);
-		// System.err.println(original);
-
-		List<Chromosome> population = initializeRandomPopulation(reel, original,
-				POPULATION_SIZE);
-		// System.err.println(population);
+	private static void mutateAndEvaluate(Chromosome child,
+			ReelContext context, RandomSource random) {
+		/* The edits of the windows fitness time their own mutation. */
+		if (WINDOWS != null) {
+			evaluate(child, context, random);
+			child.mutate(context.original(), MUTATION_RATE, random, WINDOWS,
+					context);
+			return;
+		}
 
 		/*
-		 * Do an evolutionary optimization. Each loop only a single genetic
-		 * algorithm child is created that is why population size should be
-		 * multiplied by the number of required generations.
+		 * Mutation done according to original chunks available values.
 		 */
-		for (long g = EVOLUTION_EPOCHS * population.size(); g > 0; g--) {
-			/* Select parents and a child slot. */
-			Chromosome familiy[] = selection(population);
+		Metrics metrics = context.metrics();
+		long time = metrics.time();
+		child.mutate(context.original(), MUTATION_RATE, random);
+		metrics.phase(Phase.MUTATION, time);
 
-			/* Stronger parent is the first one. */
-			Chromosome parent1 = (familiy[0].fitness() > familiy[1].fitness())
-					? familiy[0]
-					: familiy[1];
-			Chromosome parent2 = (familiy[0].fitness() < familiy[1].fitness())
-					? familiy[0]
-					: familiy[1];
+		/*
+		 * Evaluate fitness value of the newly created child.
+		 * 
+		 * Distance is taken with a negative sign because if the candidate
+		 * solution is farther away from the original the solution is worse.
+		 * 
+		 * With such an evaluation of the fitness, all values will be
+		 * negative, but the smallest distance gives the best-found candidate
+		 * solution.
+		 */
+		evaluate(child, context, random);
+	}
 
-			/* Crossover between parents. */
-			Chromosome child = parent1.crossover(parent2);
+	/**
+	 * Evaluates again an individual of the population, if it was evaluated
+	 * against an older target of the reel.
+	 * 
+	 * @param population
+	 *            Current generation as population of individuals.
+	 * 
+	 * @param slot
+	 *            Slot of the individual.
+	 * 
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 */
+	private static void refresh(Population population, int slot,
+			ReelContext context, RandomSource random) {
+		Chromosome individual = population.get(slot);
+		if (individual.version() == context.version()) {
+			return;
+		}
 
-			/*
-			 * Mutation done according to original chunks available values.
-			 */
-			child.mutate(original, MUTATION_RATE);
+		individual.version(context.version());
+		population.rescore(slot,
+				-fitness(context).distance(individual, context, random));
+	}
 
-			/*
-			 * Evaluate fitness value of the newly created child.
-			 * 
-			 * Distance is taken with a negative sign because if the candidate
-			 * solution is farther away from the original the solution is worse.
-			 * 
-			 * With such an evaluation of the fitness, all values will be
-			 * negative, but the smallest distance gives the best-found
-			 * candidate solution.
-			 */
-			child.sampling(original);
-			child.fitness(-child.distance(original));
+	/**
+	 * Draws the slots of a tournament. Floyd's sampling gives distinct slots
+	 * with exactly one random number for each tournament member.
+	 * 
+	 * @param population
+	 *            Number of individuals in the population.
+	 * 
+	 * @param tournament
+	 *            Buffer for the tournament slots, at least three.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 */
+	private static void tournament(int population, int[] tournament,
+			RandomSource random) {
+		int size = tournament.length;
+		if (size < 3) {
+			throw new RuntimeException(
+					"Tournament should have at least two parents and a child!");
+		}
 
-			/* The new generation replaces the old generation. */
-			if (child.fitness() > familiy[2].fitness()) {
-				population.remove(familiy[2]);
-				population.add(child);
-			}
+		if (population < size) {
+			throw new RuntimeException(
+					"Population is smaller than the tournament size!");
+		}
 
-			/* Report optimization progress at each generation. */
-			if (g % population.size() == 0) {
-				System.err.print(g);
-				System.err.print("\t");
-				System.err.println(bestFound(population).fitness());
+		for (int j = population - size, k = 0; k < size; j++, k++) {
+			int slot = random.nextInt(j + 1);
+			for (int i = 0; i < k; i++) {
+				if (tournament[i] == slot) {
+					slot = j;
+					break;
+				}
 			}
+			tournament[k] = slot;
 		}
-
-		/* Print the original. */
-		System.out.println("=== ORIGIANL ===");
-		System.out.println(original);
-		System.out.println();
-
-		/* Print the best-found solution. */
-		System.out.println("=== BEST FOUND ===");
-		System.out.println(bestFound(population));
-		System.out.println();
-
-		System.err.println("=== OPTIMIZATION END ===");
 	}
 
 	/**
-	 * A recursive descent form of genetic algorithm.
+	 * Do selection of parents and a child place into the population. A
+	 * tournament of distinct individuals is drawn without rejections. The
+	 * two strongest are the parents and the weakest is replaced by the child.
 	 * 
-	 * @param depth
-	 *            Level of recursive descent (zero is the bottom).
+	 * @param population
+	 *            Current generation as population of individuals.
 	 * 
-	 * @param original
-	 *            The chromosome of the original sequence.
+	 * @param tournament
+	 *            Buffer for the tournament slots, at least three.
 	 * 
-	 * @return The best-found solution.
+	 * @param familiy
+	 *            Buffer for the selected parents and child slots.
+	 * 
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
 	 */
-	private static Chromosome recursiveOptimalSolution(int depth,
-			Chromosome original) {
-		/*
-		 * Recursive depth is identical to the population size. If the recursive
-		 * level is below or equal to zero, there is an best-found solution.
-		 */
-		if (depth <= 0) {
-			return null;
-		}
+	private static void selection(Population population, int[] tournament,
+			int[] familiy, ReelContext context, RandomSource random) {
+		int size = tournament.length;
+		tournament(population.size(), tournament, random);
 
-		/*
-		 * If the recursive level is one there will be only one random
-		 * individual and it will be returned.
-		 */
-		if (depth == 1) {
-			/* Create a random solution. */
-			Chromosome child = Chromosome.initializeRandom(original);
-			
-			/* Evaluate the random solution.. */
-			child.sampling(original);
-			child.fitness(-child.distance(original));
-			
-			/* Return newly created random solution. */
-			return child;
+		/* After a change of the target the individuals are rescored lazily. */
+		for (int k = 0; k < size; k++) {
+			refresh(population, tournament[k], context, random);
 		}
 
-		/*
-		 * Build the local population on the specified recursive level according
-		 * to best-found individuals from the sub-levels.
-		 */
-		List<Chromosome> population = new ArrayList<Chromosome>(depth);
-		for (int i = 0; i < depth; i++) {
-			population.add(recursiveOptimalSolution(depth - 1, original));
+		/* Order the tournament from the strongest to the weakest. */
+		for (int i = 1; i < size; i++) {
+			int slot = tournament[i];
+			double fitness = population.get(slot).fitness();
+			int j = i - 1;
+			for (; j >= 0 && population.get(tournament[j])
+					.fitness() < fitness; j--) {
+				tournament[j + 1] = tournament[j];
+			}
+			tournament[j + 1] = slot;
 		}
 
 		/*
-		 * Apply local search until better solutions are found in the local
-		 * recursive level population.
+		 * Appointed for a child individual in the genetic algorithm
+		 * population will replace the previous one that is why the weakest
+		 * is selected.
 		 */
-		boolean stop = false;
-		Chromosome result = bestFound(population);
-		while (stop == false) {
-			stop = true;
-
-			/* Crossover and mutation with each other. */
-			for (Chromosome first : population) {
-				for (Chromosome second : population) {
-					/* Crossover. */
-					Chromosome child = first.crossover(second);
-
-					/* Mutation. */
-					child.mutate(original, MUTATION_RATE);
+		familiy[0] = tournament[0];
+		familiy[1] = tournament[1];
+		familiy[2] = tournament[size - 1];
+	}
 
-					/* Evaluation. */
-					child.sampling(original);
-					child.fitness(-child.distance(original));
+	/**
+	 * Do selection of parents and a child place into a population in direct
+	 * memory. Only the fitness values of the records are read.
+	 * 
+	 * @param population
+	 *            Current generation as records in direct memory.
+	 * 
+	 * @param tournament
+	 *            Buffer for the tournament slots, at least three.
+	 * 
+	 * @param familiy
+	 *            Buffer for the selected parents and child slots.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 */
+	private static void selection(OffHeapPopulation population,
+			int[] tournament, int[] familiy, RandomSource random) {
+		int size = tournament.length;
+		tournament(population.size(), tournament, random);
 
-					/* Selection. */
-					if (child.fitness() > result.fitness()) {
-						result = child;
-						stop = false;
-					}
-				}
+		/* Order the tournament from the strongest to the weakest. */
+		for (int i = 1; i < size; i++) {
+			int slot = tournament[i];
+			double fitness = population.fitness(slot);
+			int j = i - 1;
+			for (; j >= 0 && population.fitness(tournament[j]) < fitness; j--) {
+				tournament[j + 1] = tournament[j];
 			}
+			tournament[j + 1] = slot;
 		}
 
-		/*
-		 * Return the best-found solution from the local search on the current
-		 * recursive node.
-		 */
-		return result;
+		familiy[0] = tournament[0];
+		familiy[1] = tournament[1];
+		familiy[2] = tournament[size - 1];
 	}
 
 	/**
-	 * A hierarchical form of genetic algorithm.
+	 * Forms the report of a single reel reconstruction.
 	 * 
-	 * @param reel
-	 *            Single reel as an array of numbers.
+	 * @param context
+	 *            Reconstruction context with the original chromosome.
+	 * 
+	 * @param best
+	 *            The best-found solution.
+	 * 
+	 * @return Text with the original and the best-found solution.
 	 */
-	private static void hierarchicalGeneticAlgorithm(int[] reel) {
-		System.err.println("=== OPTIMIZATION START ===");
-
-		/* Creation of the chromosome with chunks from the original reel. */
-		Chromosome original = Chromosome.initializeOriginal(reel, CHUNKS_SIZE,
-				HISTOGRAM_THRESHOLD);
-
-		/* Get a recursive optimal solution. */
-		Chromosome best = recursiveOptimalSolution(RECURSION_DEPTH, original);
+	static String report(ReelContext context, Chromosome best) {
+		StringBuilder result = new StringBuilder();
 
 		/* Print the original. */
-		System.out.println("=== ORIGIANL ===");
-		System.out.println(original);
-		System.out.println();
+		result.append("=== ORIGIANL ===\n");
+		result.append(context.original()).append("\n");
+		result.append("\n");
 
 		/* Print the best-found solution. */
-		System.out.println("=== BEST FOUND ===");
-		System.out.println(best);
-		System.out.println();
+		result.append("=== BEST FOUND ===\n");
+		result.append(best).append("\n");
+		result.append("\n");
 
-		System.err.println("=== OPTIMIZATION END ===");
+		/* Counters of the cache are not a part of the report. */
+		if (context.cache() != null) {
+			System.err.println(context.cache());
+		}
+
+		return result.toString();
 	}
 
 	/**
-	 * Application single entry point method.
+	 * Creates a single steady-state child. Parents are selected by a
+	 * tournament, the child is written in a scratch chromosome and it replaces
+	 * the weakest individual of the tournament if it is better.
 	 * 
-	 * @param args
-	 *            Command line arguments.
+	 * @param population
+	 *            Current generation as population of individuals.
+	 * 
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 * 
+	 * @param tournament
+	 *            Buffer for the tournament slots.
+	 * 
+	 * @param familiy
+	 *            Buffer for the selected parents and child slots.
+	 * 
+	 * @param child
+	 *            Scratch chromosome for the child.
+	 * 
+	 * @return Scratch chromosome for the next child, which is the replaced
+	 *         individual if the child was accepted.
 	 */
-	public static void main(String[] args) {
-		/* Handle each virtual reel separate. */
-		for (int reels[][] : ORIGINAL_STRIPS) {
-			System.err.println("=== RELLS ===");
-			System.out.println("=== RELLS ===");
-			System.out.println();
-
-			for (int reel[] : reels) {
-				// simpleGeneticAlgorithm(reel);
-				hierarchicalGeneticAlgorithm(reel);
-			}
-		}
-	}
+	static Chromosome offspring(Population population, ReelContext context,
+			RandomSource random, int[] tournament, int[] familiy,
+			Chromosome child) {
+		Metrics metrics = context.metrics();
+		long time = metrics.time();
+
+		/* Select parents and a child slot. */
+		selection(population, tournament, familiy, context, random);
+		time = metrics.phase(Phase.SELECTION, time);
+		Chromosome mother = population.get(familiy[0]);
+		Chromosome father = population.get(familiy[1]);
+
+		/* Stronger parent is the first one. */
+		Chromosome parent1 = (mother.fitness() > father.fitness())
+				? mother
+				: father;
+		Chromosome parent2 = (mother.fitness() < father.fitness())
+				? mother
+				: father;
+
+		/* Crossover between parents. */
+		parent1.crossover(parent2, context, random, child);
+		metrics.phase(Phase.CROSSOVER, time);
+		metrics.child();
+
+		/*
+		 * Rotations of an individual already in the population are rejected
+		 * before the evaluation, because they only take slots without adding
+		 * diversity.
+		 */
+		if (population.contains(child) == true) {
+			return child;
+		}
+
+		/* Mutation and evaluation of the newly created child. */
+		mutateAndEvaluate(child, context, random);
+
+		/*
+		 * The new generation replaces the old generation in place and the
+		 * replaced individual becomes the next scratch chromosome.
+		 */
+		if (child.fitness() > population.get(familiy[2]).fitness()) {
+			metrics.acceptance();
+			return population.replace(familiy[2], child);
+		}
+
+		return child;
+	}
+
+	/**
+	 * Creates a batch of children. Parents and child slots are selected for
+	 * all children first, the children are created and evaluated in parallel
+	 * and after that each child replaces the individual in its slot, if it is
+	 * better. Children which are not taken into the population stay as
+	 * scratch chromosomes.
+	 * 
+	 * @param population
+	 *            Current generation as population of individuals.
+	 * 
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 * 
+	 * @param tournament
+	 *            Buffer for the tournament slots.
+	 * 
+	 * @param families
+	 *            Buffers for the selected parents and child slots of each
+	 *            child.
+	 * 
+	 * @param randoms
+	 *            Buffer for the sources of pseudo-random numbers of each
+	 *            child.
+	 * 
+	 * @param children
+	 *            Scratch chromosomes for the children.
+	 * 
+	 * @param count
+	 *            Number of children in the batch.
+	 */
+	private static void offspring(Population population, ReelContext context,
+			RandomSource random, int[] tournament, int[][] families,
+			RandomSource[] randoms, Chromosome[] children, int count) {
+		Metrics metrics = context.metrics();
+		long time = metrics.time();
+
+		/* Select parents and child slots for the whole batch. */
+		for (int k = 0; k < count; k++) {
+			selection(population, tournament, families[k], context, random);
+			randoms[k] = random.split();
+		}
+		metrics.phase(Phase.SELECTION, time);
+
+		POOL.invoke(new OffspringBatch(population, context, families,
+				randoms, children, 0, count));
+
+		/*
+		 * Replacement is done in the order of the selection. A child should
+		 * be better than the current individual in its slot, which can be a
+		 * child of the same batch.
+		 */
+		for (int k = 0; k < count; k++) {
+			Chromosome child = children[k];
+			int slot = families[k][2];
+			if (child.fitness() > population.get(slot).fitness()
+					&& population.contains(child) == false) {
+				metrics.acceptance();
+				children[k] = population.replace(slot, child);
+			}
+		}
+	}
+
+	/**
+	 * Creates a single steady-state child in a population in direct memory.
+	 * Parents are read from their records, the child is written in a scratch
+	 * chromosome and it is copied over the weakest individual of the
+	 * tournament if it is better.
+	 * 
+	 * @param population
+	 *            Current generation as records in direct memory.
+	 * 
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 * 
+	 * @param tournament
+	 *            Buffer for the tournament slots.
+	 * 
+	 * @param familiy
+	 *            Buffer for the selected parents and child slots.
+	 * 
+	 * @param child
+	 *            Scratch chromosome for the child.
+	 */
+	private static void offspring(OffHeapPopulation population,
+			ReelContext context, RandomSource random, int[] tournament,
+			int[] familiy, Chromosome child) {
+		Metrics metrics = context.metrics();
+		long time = metrics.time();
+
+		/* Select parents and a child slot. */
+		selection(population, tournament, familiy, random);
+		time = metrics.phase(Phase.SELECTION, time);
+		double mother = population.fitness(familiy[0]);
+		double father = population.fitness(familiy[1]);
+
+		/* Stronger parent is the first one. */
+		int parent1 = (mother > father) ? familiy[0] : familiy[1];
+		int parent2 = (mother < father) ? familiy[0] : familiy[1];
+
+		/* Crossover between parents. */
+		population.crossover(parent1, parent2, context, random, child);
+		metrics.phase(Phase.CROSSOVER, time);
+		metrics.child();
+
+		/* Rotations of an individual in the population are rejected. */
+		if (population.contains(child) == true) {
+			return;
+		}
+
+		/* Mutation and evaluation of the newly created child. */
+		mutateAndEvaluate(child, context, random);
+
+		/* The record of the replaced individual is overwritten. */
+		if (child.fitness() > population.fitness(familiy[2])) {
+			metrics.acceptance();
+			population.replace(familiy[2], child);
+		}
+	}
+
+	/**
+	 * Creates the checkpoint of a reel, if the checkpoints are enabled.
+	 * 
+	 * @param name
+	 *            Name of the reel.
+	 * 
+	 * @return Checkpoint of the reel or null.
+	 */
+	private static Checkpoint checkpoint(String name) {
+		if (CHECKPOINTS == null) {
+			return null;
+		}
+
+		return new Checkpoint(new File(CHECKPOINTS, name + ".checkpoint"));
+	}
+
+	/**
+	 * Loads a checkpoint, if the resume mode is on and the checkpoint was
+	 * written.
+	 * 
+	 * @param checkpoint
+	 *            Checkpoint of the reel or null.
+	 * 
+	 * @return True if the evolution should be resumed from the checkpoint.
+	 * 
+	 * @throws IOException
+	 *             If the checkpoint can not be read.
+	 */
+	private static boolean resume(Checkpoint checkpoint) throws IOException {
+		if (RESUME == false || checkpoint == null
+				|| checkpoint.exists() == false) {
+			return false;
+		}
+
+		System.err.println("=== OPTIMIZATION RESUME ===");
+		checkpoint.load(cache());
+		return true;
+	}
+
+	/**
+	 * Steady-state evolution of a population for a reel. If there are
+	 * observations, the windows observed in the meantime are applied to the
+	 * context at each generation and the population is rescored lazily.
+	 * If there is a checkpoint, the state is saved periodically and at the
+	 * end. The evolution ends early when the termination criterion is
+	 * reached. An island exchanges its best individuals with the other
+	 * islands and only the first island reports its progress.
+	 * 
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 * 
+	 * @param population
+	 *            Initial population.
+	 * 
+	 * @param steps
+	 *            Number of offspring steps to be done.
+	 * 
+	 * @param progress
+	 *            Progress of the run.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 * 
+	 * @param observations
+	 *            Stream of observed windows or null for a fixed reel.
+	 * 
+	 * @param index
+	 *            Index of the reel in the observations.
+	 * 
+	 * @param checkpoint
+	 *            Checkpoint of the reel or null.
+	 * 
+	 * @param migration
+	 *            Exchange between the islands or null for a single
+	 *            population.
+	 * 
+	 * @param island
+	 *            Index of the island.
+	 * 
+	 * @return The best-found solution.
+	 * 
+	 * @throws InterruptedException
+	 *             If the waiting for the last checkpoint is interrupted.
+	 */
+	private static Chromosome evolve(ReelContext context,
+			Population population, long steps, Termination.Progress progress,
+			RandomSource random, Observations observations, int index,
+			Checkpoint checkpoint, Migration migration, int island)
+			throws InterruptedException {
+		// System.err.println(population);
+
+		/*
+		 * Buffers are reused in each loop. The child is written in a scratch
+		 * chromosome, which is swapped with the replaced individual.
+		 */
+		int tournament[] = new int[TOURNAMENT_SIZE];
+		int familiy[] = new int[3];
+		Chromosome child = new Chromosome();
+
+		/* Buffers of the batches. */
+		int families[][] = new int[BATCH_SIZE][3];
+		RandomSource randoms[] = new RandomSource[BATCH_SIZE];
+		Chromosome children[] = new Chromosome[BATCH_SIZE];
+		for (int k = 0; k < children.length; k++) {
+			children[k] = new Chromosome();
+		}
+
+		/*
+		 * Do an evolutionary optimization. Each loop only a single genetic
+		 * algorithm child is created that is why population size should be
+		 * multiplied by the number of required generations. In batch mode a
+		 * loop creates a batch of children, but a batch does not cross the
+		 * step of a generation report.
+		 */
+		for (long g = steps; g > 0; g--) {
+			long remaining = (g < population.size())
+					? g
+					: g % population.size() + 1;
+			int count = (int) Math.min(BATCH_SIZE, remaining);
+			if (count > 1) {
+				offspring(population, context, random, tournament, families,
+						randoms, children, count);
+				g -= count - 1;
+			} else {
+				child = offspring(population, context, random, tournament,
+						familiy, child);
+			}
+
+			/* Report optimization progress at each generation. */
+			if (g % population.size() == 0) {
+				if (island == 0) {
+					progress(context, g, population.best().fitness());
+					METRICS.generation(context.metrics(),
+							EVOLUTION_EPOCHS - g / population.size(),
+							population);
+				}
+
+				/* The target moves with the new observations. */
+				if (observations != null) {
+					observations.drain(index, context);
+				}
+
+				/* The best-found is returned, if the run is over. */
+				progress.generation(population.best().fitness());
+				if (TERMINATION.reached(progress, context.metrics()) == true) {
+					if (migration != null) {
+						migration.finish();
+					}
+					break;
+				}
+
+				/* The best individuals travel between the islands. */
+				if (migration != null) {
+					if (migration.finished() == true) {
+						break;
+					}
+
+					if (progress.generation() % MIGRATION_INTERVAL == 0) {
+						migration.emigrate(island, population);
+						migration.immigrate(island, population);
+					}
+				}
+
+				/* The evolution continues with the next step after resume. */
+				if (checkpoint != null && (g / population.size())
+						% CHECKPOINT_INTERVAL == 0) {
+					checkpoint.save(g - 1, progress, random, context,
+							population);
+				}
+			}
+		}
+
+		if (checkpoint != null) {
+			checkpoint.save(0, progress, random, context, population);
+			checkpoint.await();
+		}
+
+		/* The best-found is known only if all individuals are up to date. */
+		if (observations != null) {
+			for (int i = 0; i < population.size(); i++) {
+				refresh(population, i, context, random);
+			}
+		}
+
+		return population.best();
+	}
+
+	/**
+	 * Prints the progress of a reel as a single line, so the lines of the
+	 * concurrent reels are not mixed. The line starts with the number of the
+	 * reconstruction.
+	 * 
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 * 
+	 * @param steps
+	 *            Offspring steps left to be done.
+	 * 
+	 * @param fitness
+	 *            Fitness of the best-found solution.
+	 */
+	private static void progress(ReelContext context, long steps,
+			double fitness) {
+		System.err.println(
+				context.metrics().run() + "\t" + steps + "\t" + fitness);
+	}
+
+	/**
+	 * Steady-state evolution of a population in direct memory for a reel.
+	 * There are no observations, checkpoints or islands and the evolution
+	 * ends early when the termination criterion is reached.
+	 * 
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 * 
+	 * @param population
+	 *            Initial population as records in direct memory.
+	 * 
+	 * @param steps
+	 *            Number of offspring steps to be done.
+	 * 
+	 * @param progress
+	 *            Progress of the run.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 * 
+	 * @return The best-found solution.
+	 */
+	private static Chromosome evolve(ReelContext context,
+			OffHeapPopulation population, long steps,
+			Termination.Progress progress, RandomSource random) {
+		/* The only chromosome of the evolution is the scratch child. */
+		int tournament[] = new int[TOURNAMENT_SIZE];
+		int familiy[] = new int[3];
+		Chromosome child = new Chromosome();
+
+		for (long g = steps; g > 0; g--) {
+			offspring(population, context, random, tournament, familiy,
+					child);
+
+			/* Report optimization progress at each generation. */
+			if (g % population.size() == 0) {
+				double best = population.fitness(population.bestIndex());
+				progress(context, g, best);
+				METRICS.generation(context.metrics(),
+						EVOLUTION_EPOCHS - g / population.size(), population);
+
+				/* The best-found is returned, if the run is over. */
+				progress.generation(best);
+				if (TERMINATION.reached(progress, context.metrics()) == true) {
+					break;
+				}
+			}
+		}
+
+		return population.best();
+	}
+
+	/**
+	 * Fork/join task for the initialization of a population in direct
+	 * memory. Each block of slots has its own source of pseudo-random
+	 * numbers and its own scratch chromosome.
+	 */
+	private static class OffHeapInitialization extends RecursiveAction {
+		/**
+		 * Default serial version UID.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Population as records in direct memory.
+		 */
+		private final OffHeapPopulation population;
+
+		/**
+		 * Reconstruction context of the reel.
+		 */
+		private final ReelContext context;
+
+		/**
+		 * Sources of pseudo-random numbers of the blocks.
+		 */
+		private final RandomSource[] randoms;
+
+		/**
+		 * The first block index (inclusive).
+		 */
+		private final int from;
+
+		/**
+		 * The last block index (exclusive).
+		 */
+		private final int to;
+
+		/**
+		 * Constructor with all parameters.
+		 * 
+		 * @param population
+		 *            Population as records in direct memory.
+		 * 
+		 * @param context
+		 *            Reconstruction context of the reel.
+		 * 
+		 * @param randoms
+		 *            Sources of pseudo-random numbers of the blocks.
+		 * 
+		 * @param from
+		 *            The first block index (inclusive).
+		 * 
+		 * @param to
+		 *            The last block index (exclusive).
+		 */
+		OffHeapInitialization(OffHeapPopulation population,
+				ReelContext context, RandomSource[] randoms, int from,
+				int to) {
+			this.population = population;
+			this.context = context;
+			this.randoms = randoms;
+			this.from = from;
+			this.to = to;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			/* Split the blocks until a single block is left. */
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(
+						new OffHeapInitialization(population, context,
+								randoms, from, middle),
+						new OffHeapInitialization(population, context,
+								randoms, middle, to));
+				return;
+			}
+
+			/* Different blocks write different records. */
+			Chromosome scratch = new Chromosome();
+			RandomSource random = randoms[from];
+			int last = Math.min(population.capacity(),
+					(from + 1) * INITIALIZATION_BLOCK);
+			for (int slot = from * INITIALIZATION_BLOCK; slot < last; slot++) {
+				scratch.randomize(context, random);
+				evaluate(scratch, context, random);
+				population.set(slot, scratch);
+			}
+		}
+	}
+
+	/**
+	 * Simple genetic algorithm with a very large population in direct
+	 * memory. The population is created and evaluated in parallel blocks.
+	 * 
+	 * @param reel
+	 *            Single reel as an array of numbers.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 * 
+	 * @return Report of the reconstruction.
+	 */
+	private static String offHeapGeneticAlgorithm(int[] reel,
+			RandomSource random) {
+		System.err.println("=== OPTIMIZATION START ===");
+		ReelContext context = initializeContext(reel, random);
+
+		OffHeapPopulation population = new OffHeapPopulation(OFF_HEAP_SIZE,
+				context);
+		RandomSource randoms[] = new RandomSource[(OFF_HEAP_SIZE
+				+ INITIALIZATION_BLOCK - 1) / INITIALIZATION_BLOCK];
+		for (int b = 0; b < randoms.length; b++) {
+			randoms[b] = random.split();
+		}
+		POOL.invoke(new OffHeapInitialization(population, context, randoms, 0,
+				randoms.length));
+		population.fill(OFF_HEAP_SIZE);
+
+		String report = report(context,
+				evolve(context, population,
+						EVOLUTION_EPOCHS * population.size(),
+						new Termination.Progress(), random));
+
+		System.err.println("=== OPTIMIZATION END ===");
+
+		return report;
+	}
+
+	/**
+	 * Task for a single island of the island model. It runs for the whole
+	 * evolution, so it has its own thread instead of a fork/join worker.
+	 */
+	private static class Island implements Callable<Chromosome> {
+		/**
+		 * Reconstruction context of the reel.
+		 */
+		private final ReelContext context;
+
+		/**
+		 * Exchange between the islands.
+		 */
+		private final Migration migration;
+
+		/**
+		 * Index of the island.
+		 */
+		private final int island;
+
+		/**
+		 * Source of pseudo-random numbers for the island.
+		 */
+		private final RandomSource random;
+
+		/**
+		 * Constructor with all parameters.
+		 * 
+		 * @param context
+		 *            Reconstruction context of the reel.
+		 * 
+		 * @param migration
+		 *            Exchange between the islands.
+		 * 
+		 * @param island
+		 *            Index of the island.
+		 * 
+		 * @param random
+		 *            Source of pseudo-random numbers for the island.
+		 */
+		Island(ReelContext context, Migration migration, int island,
+				RandomSource random) {
+			this.context = context;
+			this.migration = migration;
+			this.island = island;
+			this.random = random;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public Chromosome call() throws InterruptedException {
+			Population population = initializeRandomPopulation(context,
+					POPULATION_SIZE, random);
+
+			return evolve(context, population,
+					EVOLUTION_EPOCHS * population.size(),
+					new Termination.Progress(), random, null, 0, null,
+					migration, island);
+		}
+	}
+
+	/**
+	 * Island model of the simple genetic algorithm. Each island evolves its
+	 * own population in its own thread and the best individuals migrate
+	 * between the islands.
+	 * 
+	 * @param reel
+	 *            Single reel as an array of numbers.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 * 
+	 * @return Report of the reconstruction.
+	 * 
+	 * @throws InterruptedException
+	 *             If the waiting for the islands is interrupted.
+	 */
+	private static String islandGeneticAlgorithm(int[] reel,
+			RandomSource random) throws InterruptedException {
+		System.err.println("=== OPTIMIZATION START ===");
+		ReelContext context = initializeContext(reel, random);
+
+		Chromosome best = best(islands(context,
+				new Migration(ISLANDS, TOPOLOGY, MIGRANTS), random));
+
+		System.err.println("=== OPTIMIZATION END ===");
+
+		return report(context, best);
+	}
+
+	/**
+	 * Starts the islands of a reel in a pool with a thread for each island.
+	 * All islands run at the same time, so none of them starts after the
+	 * others have finished the migration. The short fork/join tasks of the
+	 * islands are still done in the fork/join pool.
+	 * 
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 * 
+	 * @param migration
+	 *            Exchange between the islands.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers, split for each island.
+	 * 
+	 * @return Running islands.
+	 */
+	static List<Future<Chromosome>> islands(ReelContext context,
+			Migration migration, RandomSource random) {
+		List<Island> islands = new ArrayList<Island>(migration.islands());
+		for (int i = 0; i < migration.islands(); i++) {
+			islands.add(new Island(context, migration, i, random.split()));
+		}
+
+		/* The threads end with the islands. */
+		ExecutorService executor = Executors
+				.newFixedThreadPool(migration.islands());
+		List<Future<Chromosome>> result = new ArrayList<Future<Chromosome>>(
+				migration.islands());
+		for (Island island : islands) {
+			result.add(executor.submit(island));
+		}
+		executor.shutdown();
+
+		return result;
+	}
+
+	/**
+	 * Waits for the islands and finds the best of them.
+	 * 
+	 * @param islands
+	 *            Running islands.
+	 * 
+	 * @return The best-found solution of all islands.
+	 * 
+	 * @throws InterruptedException
+	 *             If the waiting is interrupted.
+	 */
+	static Chromosome best(List<Future<Chromosome>> islands)
+			throws InterruptedException {
+		Chromosome best = null;
+		for (Future<Chromosome> island : islands) {
+			Chromosome candidate;
+			try {
+				candidate = island.get();
+			} catch (ExecutionException exception) {
+				throw new RuntimeException(exception);
+			}
+
+			if (best == null || candidate.fitness() > best.fitness()) {
+				best = candidate;
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * A simple form of genetic algorithm.
+	 * 
+	 * @param reel
+	 *            Single reel as an array of numbers.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 * 
+	 * @param checkpoint
+	 *            Checkpoint of the reel or null.
+	 * 
+	 * @return Report of the reconstruction.
+	 * 
+	 * @throws IOException
+	 *             If the checkpoint can not be read.
+	 * 
+	 * @throws InterruptedException
+	 *             If the waiting for the checkpoint is interrupted.
+	 */
+	private static String simpleGeneticAlgorithm(int[] reel,
+			RandomSource random, Checkpoint checkpoint)
+			throws IOException, InterruptedException {
+		/* Islands and populations in direct memory are not checkpointed. */
+		if (ISLANDS > 1) {
+			return islandGeneticAlgorithm(reel, random);
+		}
+		if (OFF_HEAP_SIZE > 0) {
+			return offHeapGeneticAlgorithm(reel, random);
+		}
+
+		if (resume(checkpoint) == true) {
+			return report(checkpoint.context(),
+					evolve(checkpoint.context(), checkpoint.population(),
+							checkpoint.steps(), checkpoint.progress(),
+							checkpoint.random(), null, 0, checkpoint, null,
+							0));
+		}
+
+		System.err.println("=== OPTIMIZATION START ===");
+		ReelContext context = initializeContext(reel, random);
+		// System.err.println(context.original());
+
+		Population population = initializeRandomPopulation(context,
+				POPULATION_SIZE, random);
+		String report = report(context,
+				evolve(context, population,
+						EVOLUTION_EPOCHS * population.size(),
+						new Termination.Progress(), random, null, 0,
+						checkpoint, null, 0));
+
+		System.err.println("=== OPTIMIZATION END ===");
+
+		return report;
+	}
+
+	/**
+	 * A simple form of genetic algorithm for a reel, which is known only by
+	 * the windows observed in the spins. The reconstruction starts with the
+	 * first observed windows and its target is updated online.
+	 * 
+	 * @param observations
+	 *            Stream of observed windows.
+	 * 
+	 * @param index
+	 *            Index of the reel in the observations.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 * 
+	 * @param checkpoint
+	 *            Checkpoint of the reel or null.
+	 * 
+	 * @return Report of the reconstruction.
+	 * 
+	 * @throws IOException
+	 *             If the checkpoint can not be read.
+	 * 
+	 * @throws InterruptedException
+	 *             If the waiting for the first windows is interrupted.
+	 */
+	private static String streamingGeneticAlgorithm(Observations observations,
+			int index, RandomSource random, Checkpoint checkpoint)
+			throws IOException, InterruptedException {
+		/*
+		 * Windows of a resumed reel are applied on top of the checkpoint. The
+		 * windows already counted in the checkpoint are skipped.
+		 */
+		if (resume(checkpoint) == true) {
+			return report(checkpoint.context(),
+					evolve(checkpoint.context(), checkpoint.population(),
+							checkpoint.steps(), checkpoint.progress(),
+							checkpoint.random(), observations, index,
+							checkpoint, null, 0));
+		}
+
+		List<int[]> windows = observations.first(index);
+		if (windows.isEmpty() == true) {
+			throw new RuntimeException(
+					"There are no observed windows for reel " + index + "!");
+		}
+
+		System.err.println("=== OPTIMIZATION START ===");
+		ReelContext context = ReelContext.streaming(windows, CHUNKS_SIZE,
+				HISTOGRAM_THRESHOLD);
+		context.cache(cache());
+
+		Population population = initializeRandomPopulation(context,
+				POPULATION_SIZE, random);
+		String report = report(context,
+				evolve(context, population,
+						EVOLUTION_EPOCHS * population.size(),
+						new Termination.Progress(), random, observations,
+						index, checkpoint, null, 0));
+
+		System.err.println("=== OPTIMIZATION END ===");
+
+		return report;
+	}
+
+	/**
+	 * Fork/join task for a subtree of the recursive descent genetic
+	 * algorithm.
+	 */
+	private static class RecursiveSolution extends RecursiveTask<Chromosome> {
+		/**
+		 * Default serial version UID.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Level of recursive descent.
+		 */
+		private final int depth;
+
+		/**
+		 * Reconstruction context of the reel.
+		 */
+		private final ReelContext context;
+
+		/**
+		 * Source of pseudo-random numbers for the subtree.
+		 */
+		private final RandomSource random;
+
+		/**
+		 * Constructor with all parameters.
+		 * 
+		 * @param depth
+		 *            Level of recursive descent (zero is the bottom).
+		 * 
+		 * @param context
+		 *            Reconstruction context of the reel.
+		 * 
+		 * @param random
+		 *            Source of pseudo-random numbers for the subtree.
+		 */
+		RecursiveSolution(int depth, ReelContext context,
+				RandomSource random) {
+			this.depth = depth;
+			this.context = context;
+			this.random = random;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected Chromosome compute() {
+			return recursiveOptimalSolution(depth, context, random);
+		}
+	}
+
+	/**
+	 * Fork/join task which creates and evaluates the children of a batch for
+	 * a range of selected families.
+	 */
+	private static class OffspringBatch extends RecursiveAction {
+		/**
+		 * Default serial version UID.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Current generation as population of individuals. It is only read
+		 * by the tasks.
+		 */
+		private final Population population;
+
+		/**
+		 * Reconstruction context of the reel.
+		 */
+		private final ReelContext context;
+
+		/**
+		 * Selected parents and child slots of each child.
+		 */
+		private final int[][] families;
+
+		/**
+		 * Sources of pseudo-random numbers for each child.
+		 */
+		private final RandomSource[] randoms;
+
+		/**
+		 * Scratch chromosomes for the children.
+		 */
+		private final Chromosome[] children;
+
+		/**
+		 * The first child index (inclusive).
+		 */
+		private final int from;
+
+		/**
+		 * The last child index (exclusive).
+		 */
+		private final int to;
+
+		/**
+		 * Constructor with all parameters.
+		 * 
+		 * @param population
+		 *            Current generation as population of individuals.
+		 * 
+		 * @param context
+		 *            Reconstruction context of the reel.
+		 * 
+		 * @param families
+		 *            Selected parents and child slots of each child.
+		 * 
+		 * @param randoms
+		 *            Sources of pseudo-random numbers for each child.
+		 * 
+		 * @param children
+		 *            Scratch chromosomes for the children.
+		 * 
+		 * @param from
+		 *            The first child index (inclusive).
+		 * 
+		 * @param to
+		 *            The last child index (exclusive).
+		 */
+		OffspringBatch(Population population, ReelContext context,
+				int[][] families, RandomSource[] randoms,
+				Chromosome[] children, int from, int to) {
+			this.population = population;
+			this.context = context;
+			this.families = families;
+			this.randoms = randoms;
+			this.children = children;
+			this.from = from;
+			this.to = to;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void compute() {
+			/* Split the batch until a single child is left. */
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(
+						new OffspringBatch(population, context, families,
+								randoms, children, from, middle),
+						new OffspringBatch(population, context, families,
+								randoms, children, middle, to));
+				return;
+			}
+
+			Chromosome mother = population.get(families[from][0]);
+			Chromosome father = population.get(families[from][1]);
+			RandomSource random = randoms[from];
+			Chromosome child = children[from];
+			Metrics metrics = context.metrics();
+			long time = metrics.time();
+
+			/* Stronger parent is the first one. */
+			Chromosome parent1 = (mother.fitness() > father.fitness())
+					? mother
+					: father;
+			Chromosome parent2 = (mother.fitness() < father.fitness())
+					? mother
+					: father;
+
+			/* Crossover. */
+			parent1.crossover(parent2, context, random, child);
+			metrics.phase(Phase.CROSSOVER, time);
+			metrics.child();
+
+			/* Duplicates are not evaluated and they can not be accepted. */
+			if (population.contains(child) == true) {
+				child.fitness(Double.NEGATIVE_INFINITY);
+				return;
+			}
+
+			/* Mutation and evaluation. */
+			mutateAndEvaluate(child, context, random);
+		}
+	}
+
+	/**
+	 * Fork/join task which creates and evaluates children for a range of
+	 * pairs in the local population and returns the best of them.
+	 */
+	private static class BestOffspring extends RecursiveTask<Chromosome> {
+		/**
+		 * Default serial version UID.
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Local population of the recursive level.
+		 */
+		private final List<Chromosome> population;
+
+		/**
+		 * Reconstruction context of the reel.
+		 */
+		private final ReelContext context;
+
+		/**
+		 * Sources of pseudo-random numbers for each pair.
+		 */
+		private final RandomSource[] randoms;
+
+		/**
+		 * Reusable chromosomes for the children of each pair.
+		 */
+		private final Chromosome[] children;
+
+		/**
+		 * Canonical rotation fingerprints of the known individuals. It is
+		 * only read by the tasks.
+		 */
+		private final Set<Long> fingerprints;
+
+		/**
+		 * The first pair index (inclusive).
+		 */
+		private final int from;
+
+		/**
+		 * The last pair index (exclusive).
+		 */
+		private final int to;
+
+		/**
+		 * Constructor with all parameters.
+		 * 
+		 * @param population
+		 *            Local population of the recursive level.
+		 * 
+		 * @param context
+		 *            Reconstruction context of the reel.
+		 * 
+		 * @param randoms
+		 *            Sources of pseudo-random numbers for each pair.
+		 * 
+		 * @param children
+		 *            Reusable chromosomes for the children of each pair.
+		 * 
+		 * @param fingerprints
+		 *            Canonical rotation fingerprints of the known individuals.
+		 * 
+		 * @param from
+		 *            The first pair index (inclusive).
+		 * 
+		 * @param to
+		 *            The last pair index (exclusive).
+		 */
+		BestOffspring(List<Chromosome> population, ReelContext context,
+				RandomSource[] randoms, Chromosome[] children,
+				Set<Long> fingerprints, int from, int to) {
+			this.population = population;
+			this.context = context;
+			this.randoms = randoms;
+			this.children = children;
+			this.fingerprints = fingerprints;
+			this.from = from;
+			this.to = to;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected Chromosome compute() {
+			/* Split the pairs until a single child is left. */
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				BestOffspring left = new BestOffspring(population, context,
+						randoms, children, fingerprints, from, middle);
+				BestOffspring right = new BestOffspring(population, context,
+						randoms, children, fingerprints, middle, to);
+				right.fork();
+				Chromosome first = left.compute();
+				Chromosome second = right.join();
+
+				/* On equal fitness the child of the earlier pair wins. */
+				return (second.fitness() > first.fitness()) ? second : first;
+			}
+
+			Chromosome first = population.get(from / population.size());
+			Chromosome second = population.get(from % population.size());
+			RandomSource random = randoms[from];
+			Chromosome child = children[from];
+			Metrics metrics = context.metrics();
+			long time = metrics.time();
+
+			/* Crossover. */
+			first.crossover(second, context, random, child);
+			metrics.phase(Phase.CROSSOVER, time);
+			metrics.child();
+
+			/* Duplicates are not evaluated and they can not be selected. */
+			if (fingerprints.contains(Rotations.fingerprint(child.genes(),
+					child.length())) == true) {
+				child.fitness(Double.NEGATIVE_INFINITY);
+				return child;
+			}
+
+			/* Mutation and evaluation. */
+			mutateAndEvaluate(child, context, random);
+
+			return child;
+		}
+	}
+
+	/**
+	 * Checks the budgets of the reel before a new subtree is started. The
+	 * criteria of the fitness belong to the local searches, so they are
+	 * checked with an empty progress.
+	 * 
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 * 
+	 * @return True if the evaluations or the time of the reel are over.
+	 */
+	private static boolean exhausted(ReelContext context) {
+		return TERMINATION.reached(new Termination.Progress(),
+				context.metrics());
+	}
+
+	/**
+	 * A recursive descent form of genetic algorithm.
+	 * 
+	 * @param depth
+	 *            Level of recursive descent (zero is the bottom).
+	 * 
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 * 
+	 * @return The best-found solution.
+	 */
+	static Chromosome recursiveOptimalSolution(int depth,
+			ReelContext context, RandomSource random) {
+		/*
+		 * Recursive depth is identical to the population size. If the recursive
+		 * level is below or equal to zero, there is an best-found solution.
+		 */
+		if (depth <= 0) {
+			return null;
+		}
+
+		/*
+		 * If the recursive level is one there will be only one random
+		 * individual and it will be returned.
+		 */
+		if (depth == 1) {
+			/* Create a random solution. */
+			Chromosome child = Chromosome.initializeRandom(context, random);
+			
+			/* Evaluate the random solution.. */
+			evaluate(child, context, random);
+			
+			/* Return newly created random solution. */
+			return child;
+		}
+
+		/*
+		 * Build the local population on the specified recursive level according
+		 * to best-found individuals from the sub-levels. The sub-levels are
+		 * independent and they are solved as parallel tasks. Each task gets
+		 * its own split of the random numbers before it is started.
+		 */
+		int size = depth;
+		if (exhausted(context) == true) {
+			/* After the budget only a single path is descended to a result. */
+			size = 1;
+		}
+		List<RecursiveSolution> subtrees = new ArrayList<RecursiveSolution>(
+				size);
+		for (int i = 0; i < size; i++) {
+			subtrees.add(
+					new RecursiveSolution(depth - 1, context, random.split()));
+		}
+		ForkJoinTask.invokeAll(subtrees);
+		List<Chromosome> population = new ArrayList<Chromosome>(size);
+		for (RecursiveSolution subtree : subtrees) {
+			population.add(subtree.join());
+		}
+
+		/*
+		 * Apply local search until better solutions are found in the local
+		 * recursive level population or the termination criterion is reached.
+		 */
+		boolean stop = false;
+		boolean improved = false;
+		Termination.Progress progress = new Termination.Progress();
+		Chromosome result = bestFound(population);
+		RandomSource[] randoms = new RandomSource[population.size()
+				* population.size()];
+		Chromosome[] children = new Chromosome[randoms.length];
+		for (int i = 0; i < children.length; i++) {
+			children[i] = new Chromosome();
+		}
+		Set<Long> fingerprints = new HashSet<Long>();
+		for (Chromosome individual : population) {
+			fingerprints.add(Rotations.fingerprint(individual.genes(),
+					individual.length()));
+		}
+		while (stop == false && TERMINATION.reached(progress,
+				context.metrics()) == false) {
+			stop = true;
+
+			/*
+			 * Crossover and mutation with each other. All pairs are evaluated
+			 * in parallel and only the best child takes part in selection.
+			 */
+			for (int i = 0; i < randoms.length; i++) {
+				randoms[i] = random.split();
+			}
+			Chromosome child = new BestOffspring(population, context,
+					randoms, children, fingerprints, 0, randoms.length)
+							.invoke();
+
+			/* Selection. */
+			if (child.fitness() > result.fitness()) {
+				result = child;
+				stop = false;
+				improved = true;
+				context.metrics().acceptance();
+				fingerprints.add(Rotations.fingerprint(child.genes(),
+						child.length()));
+
+				/* Accepted child keeps its chromosome. */
+				for (int i = 0; i < children.length; i++) {
+					if (children[i] == child) {
+						children[i] = new Chromosome();
+					}
+				}
+			}
+
+			progress.generation(result.fitness());
+		}
+
+		/* Each local search is reported with its recursive level. */
+		if (improved == true) {
+			population.add(result);
+		}
+		METRICS.generation(context.metrics(), depth, population);
+
+		/*
+		 * Return the best-found solution from the local search on the current
+		 * recursive node.
+		 */
+		return result;
+	}
+
+	/**
+	 * A hierarchical form of genetic algorithm.
+	 * 
+	 * @param reel
+	 *            Single reel as an array of numbers.
+	 * 
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 * 
+	 * @return Report of the reconstruction.
+	 */
+	private static String hierarchicalGeneticAlgorithm(int[] reel,
+			RandomSource random) {
+		System.err.println("=== OPTIMIZATION START ===");
+
+		/* Creation of the chromosome with chunks from the original reel. */
+		ReelContext context = initializeContext(reel, random);
+
+		/* Get a recursive optimal solution. */
+		Chromosome best = POOL.invoke(
+				new RecursiveSolution(RECURSION_DEPTH, context, random));
+
+		System.err.println("=== OPTIMIZATION END ===");
+
+		return report(context, best);
+	}
+
+	/**
+	 * Prints the reports of a machine in the order of the reels.
+	 * 
+	 * @param machine
+	 *            Reports of the reels.
+	 * 
+	 * @throws InterruptedException
+	 *             If the waiting is interrupted.
+	 * 
+	 * @throws ExecutionException
+	 *             If a reconstruction failed.
+	 */
+	private static void print(List<Future<String>> machine)
+			throws InterruptedException, ExecutionException {
+		System.err.println("=== RELLS ===");
+		System.out.println("=== RELLS ===");
+		System.out.println();
+
+		for (Future<String> report : machine) {
+			System.out.print(report.get());
+		}
+	}
+
+	/**
+	 * Reconstructs online the reels of a spin log.
+	 * 
+	 * @param executor
+	 *            Threads for the reels.
+	 * 
+	 * @param seed
+	 *            Source of the random numbers for each reel.
+	 * 
+	 * @throws IOException
+	 *             If the spin log can not be read.
+	 * 
+	 * @throws InterruptedException
+	 *             If the waiting is interrupted.
+	 * 
+	 * @throws ExecutionException
+	 *             If a reconstruction failed.
+	 */
+	private static void observe(ExecutorService executor, RandomSource seed)
+			throws IOException, InterruptedException, ExecutionException {
+		try (final Observations observations = new Observations(
+				OBSERVATIONS.equals("-") == true
+						? System.in
+						: new FileInputStream(OBSERVATIONS))) {
+			List<Future<String>> machine = new ArrayList<Future<String>>();
+			for (int r = 0; r < observations.reels(); r++) {
+				final int index = r;
+				final RandomSource random = seed.split();
+				final Checkpoint checkpoint = checkpoint("observed-" + r);
+				machine.add(executor.submit(new Callable<String>() {
+					@Override
+					public String call()
+							throws IOException, InterruptedException {
+						return streamingGeneticAlgorithm(observations, index,
+								random, checkpoint);
+					}
+				}));
+			}
+
+			print(machine);
+		}
+	}
+
+	/**
+	 * Sends the reels to the island nodes and prints their reports.
+	 * 
+	 * @param sets
+	 *            Source of the reel sets.
+	 * 
+	 * @param seed
+	 *            Source of the seeds for each reel.
+	 * 
+	 * @throws IOException
+	 *             If the nodes can not be connected.
+	 * 
+	 * @throws InterruptedException
+	 *             If the waiting is interrupted.
+	 * 
+	 * @throws ExecutionException
+	 *             If a reconstruction failed.
+	 */
+	private static void coordinate(ReelSource sets, RandomSource seed)
+			throws IOException, InterruptedException, ExecutionException {
+		System.err.println("=== COORDINATOR " + COORDINATOR + " ===");
+		try (Coordinator coordinator = new Coordinator(COORDINATOR, NODES,
+				TOPOLOGY)) {
+			List<Future<String>> previous = null;
+			while (sets.hasNext() == true) {
+				List<Future<String>> machine = new ArrayList<Future<String>>();
+				for (int[] reel : sets.next()) {
+					machine.add(coordinator.submit(reel, seed.nextLong()));
+				}
+
+				if (previous != null) {
+					print(previous);
+				}
+				previous = machine;
+			}
+
+			if (previous != null) {
+				print(previous);
+			}
+		}
+	}
+
+	/**
+	 * Checks that all given system properties are used by the chosen way of
+	 * the reconstruction, so an ignored option fails at start.
+	 */
+	private static void validate() {
+		boolean simple = ALGORITHM.equals("simple");
+		if (simple == false && ALGORITHM.equals("hierarchical") == false) {
+			throw new RuntimeException(
+					"Unknown algorithm " + ALGORITHM + "!");
+		}
+
+		if (BATCH_SIZE <= 0 || ISLANDS <= 0 || OFF_HEAP_SIZE < 0) {
+			throw new RuntimeException(
+					"Batch, islands and direct memory sizes should be positive!");
+		}
+
+		/* Only the reels from a file can use the hierarchical algorithm. */
+		boolean reels = OBSERVATIONS == null && NODE == null
+				&& COORDINATOR == null;
+		if (reels == false && simple == false
+				&& System.getProperty("algorithm") != null) {
+			throw new RuntimeException(
+					"Observed reels and island nodes use the simple algorithm!");
+		}
+		if (reels == true && simple == false && (BATCH_SIZE != 1
+				|| ISLANDS != 1 || OFF_HEAP_SIZE != 0)) {
+			throw new RuntimeException(
+					"Batch, islands and direct memory need the simple algorithm!");
+		}
+
+		/* Only a reels file can be converted. */
+		if (CONVERT != null && reels == false) {
+			throw new RuntimeException(
+					"Observed reels and island nodes can not be converted!");
+		}
+
+		/* The coordinator does not evolve, its nodes do. */
+		if (COORDINATOR != null && (BATCH_SIZE != 1 || ISLANDS != 1
+				|| OFF_HEAP_SIZE != 0 || CHECKPOINTS != null)) {
+			throw new RuntimeException(
+					"Evolution options are given to the nodes!");
+		}
+
+		/* Islands of the observed reels and of the nodes are on the heap. */
+		if (OFF_HEAP_SIZE > 0 && (reels == false || ISLANDS != 1)) {
+			throw new RuntimeException(
+					"Direct memory is used by a single population of the reels!");
+		}
+		if (OFF_HEAP_SIZE > 0 && BATCH_SIZE != 1) {
+			throw new RuntimeException(
+					"Population in direct memory evolves without batches!");
+		}
+		if (ISLANDS != 1 && OBSERVATIONS != null) {
+			throw new RuntimeException(
+					"Observed reels are evolved without islands!");
+		}
+		if (System.getProperty("topology") != null && ISLANDS == 1
+				&& COORDINATOR == null) {
+			throw new RuntimeException(
+					"Topology needs islands or a coordinator!");
+		}
+
+		/* Hierarchical levels, islands and direct memory are not saved. */
+		if (CHECKPOINTS != null && OBSERVATIONS == null && (simple == false
+				|| reels == false || ISLANDS != 1 || OFF_HEAP_SIZE != 0)) {
+			throw new RuntimeException(
+					"Checkpoints are written for a single population on the heap!");
+		}
+		if (RESUME == true && CHECKPOINTS == null) {
+			throw new RuntimeException(
+					"Resume needs the checkpoints directory!");
+		}
+
+		/* Windows are compared by their counts, not by a chunk distance. */
+		if (WINDOWS != null && System.getProperty("distance") != null) {
+			throw new RuntimeException(
+					"Chunk distance is not used by the windows fitness!");
+		}
+
+		/* A remembered random sample would be reused for all rotations. */
+		if (FITNESS_CACHE_SIZE > 0 && WINDOWS == null) {
+			throw new RuntimeException(
+					"Only the windows fitness can be cached!");
+		}
+	}
+
+	/**
+	 * Application single entry point method. Reel sets are read from a file
+	 * in the text or in the binary format, if it is given as the first
+	 * argument, otherwise the built-in reels are used. If a spin log is given
+	 * with the observations system property, the reels are reconstructed
+	 * from it instead. The process can also be a coordinator of island nodes
+	 * or a node of a coordinator. The reels are reconstructed with the
+	 * algorithm given with the algorithm system property, or the reels file
+	 * is only converted to the file given with the convert system property.
+	 * 
+	 * @param args
+	 *            Command line arguments (optional path of a reels file).
+	 */
+	public static void main(String[] args) {
+		ExecutorService executor = Executors
+				.newFixedThreadPool(PARALLEL_REELS);
+
+		validate();
+
+		if (CONVERT != null) {
+			if (args.length == 0) {
+				executor.shutdown();
+				throw new RuntimeException(
+						"Conversion needs the path of a reels file!");
+			}
+
+			try {
+				ReelSource.convert(args[0], CONVERT);
+			} catch (IOException exception) {
+				throw new RuntimeException(exception);
+			} finally {
+				executor.shutdown();
+				METRICS.close();
+			}
+
+			return;
+		}
+
+		/* Each reel has its own split of the random numbers. */
+		System.err.println("=== SEED " + SEED + " ===");
+		RandomSource seed = new RandomSource(SEED);
+
+		if (NODE != null) {
+			try (Node node = new Node(NODE, executor, ISLANDS, TOPOLOGY,
+					MIGRANTS)) {
+				node.run();
+			} catch (IOException | InterruptedException exception) {
+				throw new RuntimeException(exception);
+			} finally {
+				executor.shutdown();
+				METRICS.close();
+			}
+
+			return;
+		}
+
+		if (OBSERVATIONS != null) {
+			try {
+				observe(executor, seed);
+			} catch (IOException | InterruptedException
+					| ExecutionException exception) {
+				throw new RuntimeException(exception);
+			} finally {
+				executor.shutdown();
+				METRICS.close();
+			}
+
+			return;
+		}
+
+		/*
+		 * Handle each virtual reel separate, but all of them concurrently.
+		 * Reel sets are streamed, so only the reports of the current and the
+		 * previous machine are waited at the same time.
+		 */
+		try (ReelSource sets = (args.length > 0)
+				? ReelSource.open(args[0])
+				: ReelSource.fixtures(ORIGINAL_STRIPS)) {
+			if (COORDINATOR != null) {
+				coordinate(sets, seed);
+				return;
+			}
+
+			List<Future<String>> previous = null;
+			for (int set = 0; sets.hasNext() == true; set++) {
+				List<Future<String>> machine = new ArrayList<Future<String>>();
+				int[][] reels = sets.next();
+				for (int r = 0; r < reels.length; r++) {
+					final int reel[] = reels[r];
+					final RandomSource random = seed.split();
+					final Checkpoint checkpoint = checkpoint(
+							"reel-" + set + "-" + r);
+					machine.add(executor.submit(new Callable<String>() {
+						@Override
+						public String call()
+								throws IOException, InterruptedException {
+							if (ALGORITHM.equals("simple") == true) {
+								return simpleGeneticAlgorithm(reel, random,
+										checkpoint);
+							}
+
+							return hierarchicalGeneticAlgorithm(reel, random);
+						}
+					}));
+				}
+
+				if (previous != null) {
+					print(previous);
+				}
+				previous = machine;
+			}
+
+			if (previous != null) {
+				print(previous);
+			}
+		} catch (IOException | InterruptedException
+				| ExecutionException exception) {
+			throw new RuntimeException(exception);
+		} finally {
+			executor.shutdown();
+			METRICS.close();
+		}
+	}
+
 
 }
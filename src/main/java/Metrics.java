@@ -0,0 +1,227 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of a single reel reconstruction. Counters are striped, so the
+ * parallel tasks of a reel can update them without contention. Only the
+ * time is taken in the hot paths and the statistics are calculated when a
+ * generation is reported.
+ *
+ * @author Todor Balabanov
+ */
+class Metrics {
+
+	/**
+	 * Number of the created metrics.
+	 */
+	private static final AtomicInteger RUNS = new AtomicInteger();
+
+	/**
+	 * Number of the reconstruction in the order of creation.
+	 */
+	private final int run = RUNS.incrementAndGet();
+
+	/**
+	 * Time of the creation in nanoseconds.
+	 */
+	private final long started;
+
+	/**
+	 * Number of the fitness evaluations.
+	 */
+	private final LongAdder evaluations = new LongAdder();
+
+	/**
+	 * Number of the created children.
+	 */
+	private final LongAdder children = new LongAdder();
+
+	/**
+	 * Number of the children accepted in the population.
+	 */
+	private final LongAdder accepted = new LongAdder();
+
+	/**
+	 * Time spent in each phase in nanoseconds.
+	 */
+	private final LongAdder[] phases = new LongAdder[Phase.values().length];
+
+	/**
+	 * Constructor without parameters.
+	 */
+	public Metrics() {
+		this(0);
+	}
+
+	/**
+	 * Constructor of metrics which continue an earlier reconstruction.
+	 *
+	 * @param elapsed
+	 *            Time already spent in nanoseconds.
+	 */
+	private Metrics(long elapsed) {
+		super();
+
+		started = System.nanoTime() - elapsed;
+		for (int i = 0; i < phases.length; i++) {
+			phases[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Current time for the phases measurement.
+	 *
+	 * @return Time in nanoseconds.
+	 */
+	public long time() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Adds the time spent in a phase.
+	 *
+	 * @param phase
+	 *            Measured phase.
+	 *
+	 * @param start
+	 *            Time of the phase start.
+	 *
+	 * @return Time of the phase end, which can be the start of the next
+	 *         phase.
+	 */
+	public long phase(Phase phase, long start) {
+		long end = System.nanoTime();
+		phases[phase.ordinal()].add(end - start);
+		return end;
+	}
+
+	/**
+	 * Counts a fitness evaluation.
+	 */
+	public void evaluation() {
+		evaluations.increment();
+	}
+
+	/**
+	 * Counts a created child.
+	 */
+	public void child() {
+		children.increment();
+	}
+
+	/**
+	 * Counts a child accepted in the population.
+	 */
+	public void acceptance() {
+		accepted.increment();
+	}
+
+	/**
+	 * Number of the reconstruction getter.
+	 *
+	 * @return Number of the reconstruction in the order of creation.
+	 */
+	public int run() {
+		return run;
+	}
+
+	/**
+	 * Time since the creation.
+	 *
+	 * @return Elapsed time in seconds.
+	 */
+	public double seconds() {
+		return (System.nanoTime() - started) / 1e9;
+	}
+
+	/**
+	 * Number of the fitness evaluations getter.
+	 *
+	 * @return Fitness evaluations.
+	 */
+	public long evaluations() {
+		return evaluations.sum();
+	}
+
+	/**
+	 * Number of the created children getter.
+	 *
+	 * @return Created children.
+	 */
+	public long children() {
+		return children.sum();
+	}
+
+	/**
+	 * Number of the accepted children getter.
+	 *
+	 * @return Accepted children.
+	 */
+	public long accepted() {
+		return accepted.sum();
+	}
+
+	/**
+	 * Time spent in a phase getter.
+	 *
+	 * @param phase
+	 *            Measured phase.
+	 *
+	 * @return Time in milliseconds.
+	 */
+	public double milliseconds(Phase phase) {
+		return phases[phase.ordinal()].sum() / 1e6;
+	}
+
+	/**
+	 * Writes the elapsed time and the counters.
+	 *
+	 * @param out
+	 *            Binary output.
+	 *
+	 * @throws IOException
+	 *             If the metrics can not be written.
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeLong(System.nanoTime() - started);
+		out.writeLong(evaluations.sum());
+		out.writeLong(children.sum());
+		out.writeLong(accepted.sum());
+		out.writeInt(phases.length);
+		for (LongAdder phase : phases) {
+			out.writeLong(phase.sum());
+		}
+	}
+
+	/**
+	 * Reads metrics written before. The time and the counters continue from
+	 * the written values, so the budgets of the termination are kept.
+	 *
+	 * @param in
+	 *            Binary input.
+	 *
+	 * @return Metrics of the reconstruction.
+	 *
+	 * @throws IOException
+	 *             If the metrics can not be read.
+	 */
+	public static Metrics read(DataInput in) throws IOException {
+		Metrics result = new Metrics(in.readLong());
+		result.evaluations.add(in.readLong());
+		result.children.add(in.readLong());
+		result.accepted.add(in.readLong());
+
+		if (in.readInt() != result.phases.length) {
+			throw new RuntimeException("Unknown phases of the metrics!");
+		}
+		for (LongAdder phase : result.phases) {
+			phase.add(in.readLong());
+		}
+
+		return result;
+	}
+
+}
@@ -0,0 +1,262 @@
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Destination of the generation reports. Each report is committed as a flight
+ * recorder event and it is written in a file, if a file is given. Files with
+ * the csv extension get comma separated values and all other files get a
+ * JSON object on each line.
+ *
+ * @author Todor Balabanov
+ */
+class MetricsSink implements Closeable {
+
+	/**
+	 * Names of the reported values.
+	 */
+	private static final String[] COLUMNS = {"run", "generation", "seconds",
+			"evaluations", "rate", "children", "acceptance", "best", "mean",
+			"worst", "diversity", "histogram", "sampling", "distance",
+			"crossover", "mutation", "selection"};
+
+	/**
+	 * Output file or null if only the events are recorded.
+	 */
+	private final Writer writer;
+
+	/**
+	 * True for comma separated values and false for JSON lines.
+	 */
+	private final boolean csv;
+
+	/**
+	 * Constructor with all parameters.
+	 *
+	 * @param file
+	 *            Path of the output file or null if only the events are
+	 *            recorded.
+	 */
+	public MetricsSink(String file) {
+		super();
+
+		csv = file != null && file.toLowerCase(Locale.ROOT).endsWith(".csv");
+
+		if (file == null) {
+			writer = null;
+			return;
+		}
+
+		try {
+			writer = new BufferedWriter(new FileWriter(file));
+			if (csv == true) {
+				writer.write(String.join(",", COLUMNS));
+				writer.write("\n");
+			}
+		} catch (IOException exception) {
+			throw new RuntimeException(exception);
+		}
+	}
+
+	/**
+	 * Reports a generation.
+	 *
+	 * @param metrics
+	 *            Counters of the reconstruction.
+	 *
+	 * @param generation
+	 *            Number of the generation or the recursive level.
+	 *
+	 * @param individuals
+	 *            Individuals of the generation.
+	 */
+	public void generation(Metrics metrics, long generation,
+			Iterable<Chromosome> individuals) {
+		/* Without a file or a recording there is nothing to calculate. */
+		GenerationEvent event = new GenerationEvent();
+		if (writer == null && event.shouldCommit() == false) {
+			return;
+		}
+
+		/* Fitness statistics and distinct rotations. */
+		int size = 0;
+		double best = Double.NEGATIVE_INFINITY;
+		double worst = Double.POSITIVE_INFINITY;
+		double sum = 0;
+		Set<Long> fingerprints = new HashSet<Long>();
+		for (Chromosome individual : individuals) {
+			size++;
+			best = Math.max(best, individual.fitness());
+			worst = Math.min(worst, individual.fitness());
+			sum += individual.fitness();
+			fingerprints.add(Rotations.fingerprint(individual.genes(),
+					individual.length()));
+		}
+
+		if (size == 0) {
+			throw new RuntimeException(
+					"Population size should be greater than zero!");
+		}
+
+		report(event, metrics, generation, best, sum / size, worst,
+				(double) fingerprints.size() / size);
+	}
+
+	/**
+	 * Reports a generation of a population in direct memory. The statistics
+	 * are taken from the records without decoding the individuals.
+	 *
+	 * @param metrics
+	 *            Counters of the reconstruction.
+	 *
+	 * @param generation
+	 *            Number of the generation.
+	 *
+	 * @param population
+	 *            Population of the generation.
+	 */
+	public void generation(Metrics metrics, long generation,
+			OffHeapPopulation population) {
+		/* Without a file or a recording there is nothing to calculate. */
+		GenerationEvent event = new GenerationEvent();
+		if (writer == null && event.shouldCommit() == false) {
+			return;
+		}
+
+		int size = population.size();
+		report(event, metrics, generation,
+				population.fitness(population.bestIndex()),
+				population.total() / size,
+				population.fitness(population.worstIndex()),
+				(double) population.distinct() / size);
+	}
+
+	/**
+	 * Commits the event and writes the line of a generation.
+	 *
+	 * @param event
+	 *            Flight recorder event of the generation.
+	 *
+	 * @param metrics
+	 *            Counters of the reconstruction.
+	 *
+	 * @param generation
+	 *            Number of the generation or the recursive level.
+	 *
+	 * @param best
+	 *            The highest fitness value.
+	 *
+	 * @param mean
+	 *            Average fitness value.
+	 *
+	 * @param worst
+	 *            The lowest fitness value.
+	 *
+	 * @param diversity
+	 *            Share of the individuals with distinct rotations.
+	 */
+	private void report(GenerationEvent event, Metrics metrics,
+			long generation, double best, double mean, double worst,
+			double diversity) {
+		double seconds = metrics.seconds();
+		long evaluations = metrics.evaluations();
+		double rate = evaluations / seconds;
+		long children = metrics.children();
+		double acceptance = (children == 0)
+				? 0
+				: (double) metrics.accepted() / children;
+
+		if (event.shouldCommit() == true) {
+			event.run = metrics.run();
+			event.generation = generation;
+			event.evaluations = evaluations;
+			event.rate = rate;
+			event.children = children;
+			event.acceptance = acceptance;
+			event.best = best;
+			event.mean = mean;
+			event.worst = worst;
+			event.diversity = diversity;
+			event.histogram = metrics.milliseconds(Phase.HISTOGRAM);
+			event.sampling = metrics.milliseconds(Phase.SAMPLING);
+			event.distance = metrics.milliseconds(Phase.DISTANCE);
+			event.crossover = metrics.milliseconds(Phase.CROSSOVER);
+			event.mutation = metrics.milliseconds(Phase.MUTATION);
+			event.selection = metrics.milliseconds(Phase.SELECTION);
+			event.commit();
+		}
+
+		if (writer != null) {
+			write(new double[]{metrics.run(), generation, seconds,
+					evaluations, rate, children, acceptance, best, mean, worst,
+					diversity, metrics.milliseconds(Phase.HISTOGRAM),
+					metrics.milliseconds(Phase.SAMPLING),
+					metrics.milliseconds(Phase.DISTANCE),
+					metrics.milliseconds(Phase.CROSSOVER),
+					metrics.milliseconds(Phase.MUTATION),
+					metrics.milliseconds(Phase.SELECTION)});
+		}
+	}
+
+	/**
+	 * Writes a line of values.
+	 *
+	 * @param values
+	 *            Values in the order of the columns.
+	 */
+	private void write(double[] values) {
+		StringBuilder line = new StringBuilder(csv ? "" : "{");
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				line.append(',');
+			}
+			if (csv == false) {
+				line.append('"').append(COLUMNS[i]).append("\":");
+			}
+
+			/* Counters are written without fraction. */
+			if (i == 0 || i == 1 || i == 3 || i == 5) {
+				line.append((long) values[i]);
+			} else if (Double.isNaN(values[i]) == true
+					|| Double.isInfinite(values[i]) == true) {
+				line.append(csv ? "" : "null");
+			} else {
+				line.append(values[i]);
+			}
+		}
+		line.append(csv ? "\n" : "}\n");
+
+		/* Reels are reported from different threads. */
+		synchronized (writer) {
+			try {
+				writer.write(line.toString());
+			} catch (IOException exception) {
+				throw new RuntimeException(exception);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() {
+		if (writer == null) {
+			return;
+		}
+
+		synchronized (writer) {
+			try {
+				writer.close();
+			} catch (IOException exception) {
+				throw new RuntimeException(exception);
+			}
+		}
+	}
+
+}
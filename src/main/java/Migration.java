@@ -0,0 +1,225 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Exchange of individuals between the islands of a reel. Each island has a
+ * lock-free queue of arriving migrants. An island sends copies of its best
+ * individuals to its neighbours and takes the arrived migrants when it is
+ * ready, so the islands never wait for each other. Because of that the
+ * arrival of the migrants depends on the speed of the islands.
+ *
+ * Islands of other processes are reached through the first island. Its
+ * migrants are also put in an outgoing queue and the migrants of the other
+ * processes arrive in its queue.
+ *
+ * @author Todor Balabanov
+ */
+class Migration {
+
+	/**
+	 * Arriving migrants for each island.
+	 */
+	private final List<ConcurrentLinkedQueue<Chromosome>> queues;
+
+	/**
+	 * Connections between the islands.
+	 */
+	private final Topology topology;
+
+	/**
+	 * Number of the best individuals sent by an island.
+	 */
+	private final int migrants;
+
+	/**
+	 * Migrants which leave the process or null.
+	 */
+	private final Queue<Chromosome> outgoing;
+
+	/**
+	 * True when an island reached the termination criterion.
+	 */
+	private volatile boolean finished = false;
+
+	/**
+	 * Constructor for the islands of a single process.
+	 *
+	 * @param islands
+	 *            Number of the islands.
+	 *
+	 * @param topology
+	 *            Connections between the islands.
+	 *
+	 * @param migrants
+	 *            Number of the best individuals sent by an island.
+	 */
+	public Migration(int islands, Topology topology, int migrants) {
+		this(islands, topology, migrants, null);
+	}
+
+	/**
+	 * Constructor with all parameters.
+	 *
+	 * @param islands
+	 *            Number of the islands.
+	 *
+	 * @param topology
+	 *            Connections between the islands.
+	 *
+	 * @param migrants
+	 *            Number of the best individuals sent by an island.
+	 *
+	 * @param outgoing
+	 *            Migrants which leave the process or null.
+	 */
+	public Migration(int islands, Topology topology, int migrants,
+			Queue<Chromosome> outgoing) {
+		super();
+
+		if (islands <= 0) {
+			throw new RuntimeException(
+					"Number of islands should be greater than zero!");
+		}
+		if (migrants <= 0) {
+			throw new RuntimeException(
+					"Number of migrants should be greater than zero!");
+		}
+
+		this.topology = topology;
+		this.migrants = migrants;
+		this.outgoing = outgoing;
+
+		queues = new ArrayList<ConcurrentLinkedQueue<Chromosome>>(islands);
+		for (int i = 0; i < islands; i++) {
+			queues.add(new ConcurrentLinkedQueue<Chromosome>());
+		}
+	}
+
+	/**
+	 * Number of the islands getter.
+	 *
+	 * @return Islands.
+	 */
+	public int islands() {
+		return queues.size();
+	}
+
+	/**
+	 * Sends copies of the best individuals of an island to its neighbours.
+	 * The individuals are copied, because the slots of the population are
+	 * reused.
+	 *
+	 * @param island
+	 *            Index of the island.
+	 *
+	 * @param population
+	 *            Population of the island.
+	 */
+	public void emigrate(int island, Population population) {
+		/* Partial selection of the best slots. */
+		int count = Math.min(migrants, population.size());
+		int[] best = new int[count];
+		for (int k = 0; k < count; k++) {
+			int slot = -1;
+			for (int i = 0; i < population.size(); i++) {
+				boolean taken = false;
+				for (int j = 0; j < k; j++) {
+					if (best[j] == i) {
+						taken = true;
+						break;
+					}
+				}
+
+				if (taken == false && (slot == -1 || population.get(i)
+						.fitness() > population.get(slot).fitness())) {
+					slot = i;
+				}
+			}
+			best[k] = slot;
+		}
+
+		for (int neighbour : topology.neighbours(island, queues.size())) {
+			if (neighbour == island) {
+				continue;
+			}
+
+			for (int slot : best) {
+				queues.get(neighbour).offer(population.get(slot).copy());
+			}
+		}
+
+		if (outgoing != null && island == 0) {
+			for (int slot : best) {
+				outgoing.offer(population.get(slot).copy());
+			}
+		}
+	}
+
+	/**
+	 * Adds a migrant from another process. It arrives in the first island.
+	 *
+	 * @param migrant
+	 *            Arrived individual.
+	 */
+	public void arrive(Chromosome migrant) {
+		queues.get(0).offer(migrant);
+	}
+
+	/**
+	 * Takes the arrived migrants of an island. Each migrant replaces the
+	 * worst individual, if it is better and it is not already in the
+	 * population.
+	 *
+	 * @param island
+	 *            Index of the island.
+	 *
+	 * @param population
+	 *            Population of the island.
+	 *
+	 * @return Number of the accepted migrants.
+	 */
+	public int immigrate(int island, Population population) {
+		int accepted = 0;
+
+		ConcurrentLinkedQueue<Chromosome> queue = queues.get(island);
+		for (Chromosome migrant; (migrant = queue.poll()) != null;) {
+			if (population.contains(migrant) == true) {
+				continue;
+			}
+
+			int worst = 0;
+			for (int i = 1; i < population.size(); i++) {
+				if (population.get(i).fitness() < population.get(worst)
+						.fitness()) {
+					worst = i;
+				}
+			}
+
+			if (migrant.fitness() > population.get(worst).fitness()) {
+				population.replace(worst, migrant);
+				accepted++;
+			}
+		}
+
+		return accepted;
+	}
+
+	/**
+	 * Stops all islands at their next generation.
+	 */
+	public void finish() {
+		finished = true;
+	}
+
+	/**
+	 * Checks for the end of the evolution.
+	 *
+	 * @return True if an island reached the termination criterion.
+	 */
+	public boolean finished() {
+		return finished;
+	}
+
+}
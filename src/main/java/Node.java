@@ -0,0 +1,284 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Island node in a separate process. It connects to the coordinator, evolves
+ * its own islands for each received reel and sends back the best-found
+ * solution. The migrants of the first island are sent to the coordinator and
+ * the migrants of the other nodes arrive in the first island.
+ *
+ * @author Todor Balabanov
+ */
+class Node implements Closeable {
+
+	/**
+	 * Connection with the coordinator.
+	 */
+	private final Socket socket;
+
+	/**
+	 * Messages from the coordinator.
+	 */
+	private final DataInputStream in;
+
+	/**
+	 * Messages to the coordinator, written by the threads of the reels.
+	 */
+	private final DataOutputStream out;
+
+	/**
+	 * Index of the node given by the coordinator.
+	 */
+	private final int index;
+
+	/**
+	 * Number of all nodes.
+	 */
+	private final int count;
+
+	/**
+	 * Threads for the reels.
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * Number of the islands of the node.
+	 */
+	private final int islands;
+
+	/**
+	 * Connections between the islands of the node.
+	 */
+	private final Topology topology;
+
+	/**
+	 * Number of the best individuals sent by an island.
+	 */
+	private final int migrants;
+
+	/**
+	 * Exchange between the islands of the reels in progress by identifier.
+	 */
+	private final Map<Integer, Migration> migrations = new ConcurrentHashMap<Integer, Migration>();
+
+	/**
+	 * Connects to the coordinator.
+	 *
+	 * @param address
+	 *            Host and port of the coordinator (host:port).
+	 *
+	 * @param executor
+	 *            Threads for the reels.
+	 *
+	 * @param islands
+	 *            Number of the islands of the node.
+	 *
+	 * @param topology
+	 *            Connections between the islands of the node.
+	 *
+	 * @param migrants
+	 *            Number of the best individuals sent by an island.
+	 *
+	 * @throws IOException
+	 *             If the coordinator can not be connected.
+	 */
+	public Node(String address, ExecutorService executor, int islands,
+			Topology topology, int migrants) throws IOException {
+		super();
+
+		int colon = address.lastIndexOf(':');
+		if (colon <= 0) {
+			throw new RuntimeException(
+					"Coordinator address should be host:port!");
+		}
+
+		this.executor = executor;
+		this.islands = islands;
+		this.topology = topology;
+		this.migrants = migrants;
+
+		socket = new Socket(address.substring(0, colon),
+				Integer.parseInt(address.substring(colon + 1)));
+		socket.setTcpNoDelay(true);
+		in = new DataInputStream(
+				new BufferedInputStream(socket.getInputStream()));
+		out = new DataOutputStream(
+				new BufferedOutputStream(socket.getOutputStream()));
+
+		out.writeInt(Coordinator.MAGIC);
+		out.writeByte(Coordinator.VERSION);
+		out.flush();
+
+		index = in.readInt();
+		count = in.readInt();
+		System.err.println("=== NODE " + index + " OF " + count + " ===");
+	}
+
+	/**
+	 * Reads the messages of the coordinator until there are no more reels.
+	 *
+	 * @throws IOException
+	 *             If the connection is lost.
+	 *
+	 * @throws InterruptedException
+	 *             If the waiting for the reels is interrupted.
+	 */
+	public void run() throws IOException, InterruptedException {
+		for (byte type; (type = in.readByte()) != Coordinator.DONE;) {
+			int id = in.readInt();
+
+			if (type == Coordinator.REEL) {
+				long seed = in.readLong();
+				int[] reel = new int[in.readInt()];
+				for (int i = 0; i < reel.length; i++) {
+					reel[i] = in.readInt();
+				}
+
+				/*
+				 * The migration is registered before the next message, so the
+				 * first migrants of the other nodes are not lost.
+				 */
+				LinkedBlockingQueue<Chromosome> outgoing = new LinkedBlockingQueue<Chromosome>();
+				Migration migration = new Migration(islands, topology,
+						migrants, outgoing);
+				migrations.put(id, migration);
+				reconstruct(id, reel, seed, migration, outgoing);
+			} else if (type == Coordinator.MIGRANT) {
+				Chromosome migrant = Chromosome.decode(in);
+				Migration migration = migrations.get(id);
+				if (migration != null) {
+					migration.arrive(migrant);
+				}
+			} else {
+				throw new RuntimeException(
+						"Unknown message type " + type + "!");
+			}
+		}
+
+		/* Reels in progress are finished before the end. */
+		executor.shutdown();
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Evolves the islands of a reel in the background.
+	 *
+	 * @param id
+	 *            Identifier of the reel.
+	 *
+	 * @param reel
+	 *            Single reel as an array of numbers.
+	 *
+	 * @param seed
+	 *            Seed of the reel given by the coordinator.
+	 *
+	 * @param migration
+	 *            Exchange between the islands of the reel.
+	 *
+	 * @param outgoing
+	 *            Migrants of the first island for the other nodes.
+	 */
+	private void reconstruct(final int id, final int[] reel, final long seed,
+			final Migration migration,
+			final LinkedBlockingQueue<Chromosome> outgoing) {
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				RandomSource random = new RandomSource(seed);
+				ReelContext context = Main.initializeContext(reel, random);
+
+				/* Each node has its own split of the random numbers. */
+				RandomSource stream = random;
+				for (int n = 0; n <= index; n++) {
+					stream = random.split();
+				}
+
+				try {
+					List<Future<Chromosome>> running = Main
+							.islands(context, migration, stream);
+					while (done(running) == false) {
+						Chromosome migrant = outgoing.poll(100,
+								TimeUnit.MILLISECONDS);
+						if (migrant != null) {
+							send(Coordinator.MIGRANT, id, migrant);
+						}
+					}
+
+					send(Coordinator.RESULT, id, Main.best(running));
+				} catch (IOException | InterruptedException exception) {
+					System.err.println(exception);
+				} finally {
+					migrations.remove(id);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Checks for the end of all islands.
+	 *
+	 * @param running
+	 *            Running islands.
+	 *
+	 * @return True if all islands are done.
+	 */
+	private static boolean done(List<Future<Chromosome>> running) {
+		for (Future<Chromosome> island : running) {
+			if (island.isDone() == false) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Sends an individual to the coordinator.
+	 *
+	 * @param type
+	 *            Migrant in the compact form or result in the full form.
+	 *
+	 * @param id
+	 *            Identifier of the reel.
+	 *
+	 * @param chromosome
+	 *            Individual to be sent.
+	 *
+	 * @throws IOException
+	 *             If the connection is lost.
+	 */
+	private void send(byte type, int id, Chromosome chromosome)
+			throws IOException {
+		synchronized (out) {
+			out.writeByte(type);
+			out.writeInt(id);
+			if (type == Coordinator.MIGRANT) {
+				chromosome.encode(out);
+			} else {
+				chromosome.write(out);
+			}
+			out.flush();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() throws IOException {
+		socket.close();
+	}
+
+}
@@ -0,0 +1,282 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stream of observed windows from spin logs. Each line is a spin with the
+ * visible windows of all reels separated by semicolons and the symbols of a
+ * window separated by commas. Lines are read by a background thread and the
+ * windows are queued for each reel, so the reconstruction can take them
+ * without waiting for the input.
+ *
+ * Windows are numbered in the order of the input for each reel. A context
+ * resumed from a checkpoint has already counted its first windows, so they
+ * are skipped when the same spin log is read again.
+ *
+ * Lines with symbols which are not numbers are reported and skipped. If the
+ * input can not be read, the failure is thrown to all reels.
+ *
+ * @author Todor Balabanov
+ */
+class Observations implements Closeable {
+
+	/**
+	 * Spin log lines.
+	 */
+	private final BufferedReader reader;
+
+	/**
+	 * Observed windows waiting for each reel.
+	 */
+	private final List<LinkedBlockingQueue<int[]>> queues = new ArrayList<LinkedBlockingQueue<int[]>>();
+
+	/**
+	 * Number of the windows taken from the queue of each reel.
+	 */
+	private final List<AtomicLong> positions = new ArrayList<AtomicLong>();
+
+	/**
+	 * It is released when the number of reels is known.
+	 */
+	private final CountDownLatch started = new CountDownLatch(1);
+
+	/**
+	 * True when the whole input is read.
+	 */
+	private volatile boolean finished = false;
+
+	/**
+	 * Failure of the reading or null.
+	 */
+	private volatile IOException failure = null;
+
+	/**
+	 * Constructor with all parameters. The reading starts immediately.
+	 *
+	 * @param in
+	 *            Spin log input.
+	 */
+	public Observations(InputStream in) {
+		super();
+
+		reader = new BufferedReader(new InputStreamReader(in));
+
+		Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				read();
+			}
+		}, "observations");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Reads the input until its end.
+	 */
+	private void read() {
+		try {
+			long number = 0;
+			for (String line; (line = reader.readLine()) != null;) {
+				number++;
+				line = line.trim();
+				if (line.isEmpty() == true || line.startsWith("#") == true) {
+					continue;
+				}
+
+				/* The whole spin is parsed before any window is queued. */
+				String[] windows = line.split(";");
+				int[][] spin = new int[windows.length][];
+				try {
+					for (int r = 0; r < windows.length; r++) {
+						spin[r] = parse(windows[r]);
+					}
+				} catch (NumberFormatException exception) {
+					System.err.println("Spin " + number + " is skipped: "
+							+ exception.getMessage());
+					continue;
+				}
+
+				synchronized (queues) {
+					while (queues.size() < spin.length) {
+						queues.add(new LinkedBlockingQueue<int[]>());
+						positions.add(new AtomicLong());
+					}
+				}
+				started.countDown();
+
+				for (int r = 0; r < spin.length; r++) {
+					if (spin[r] != null) {
+						queue(r).add(spin[r]);
+					}
+				}
+			}
+		} catch (IOException exception) {
+			failure = exception;
+		} finally {
+			finished = true;
+			started.countDown();
+		}
+	}
+
+	/**
+	 * Parses the symbols of a window.
+	 *
+	 * @param text
+	 *            Symbols separated by commas.
+	 *
+	 * @return Observed window or null if the reel is not visible.
+	 *
+	 * @throws NumberFormatException
+	 *             If a symbol is not a number.
+	 */
+	private static int[] parse(String text) {
+		String[] values = text.trim().split("\\s*,\\s*");
+		if (values[0].isEmpty() == true) {
+			return null;
+		}
+
+		int[] window = new int[values.length];
+		for (int i = 0; i < values.length; i++) {
+			window[i] = Integer.parseInt(values[i]);
+		}
+
+		return window;
+	}
+
+	/**
+	 * Stops the reconstruction if the input can not be read.
+	 */
+	private void check() {
+		IOException last = failure;
+		if (last != null) {
+			throw new RuntimeException("Spin log can not be read!", last);
+		}
+	}
+
+	/**
+	 * Queue of a reel.
+	 *
+	 * @param reel
+	 *            Index of the reel.
+	 *
+	 * @return Queue of the observed windows.
+	 */
+	private LinkedBlockingQueue<int[]> queue(int reel) {
+		synchronized (queues) {
+			return queues.get(reel);
+		}
+	}
+
+	/**
+	 * Number of the taken windows of a reel.
+	 *
+	 * @param reel
+	 *            Index of the reel.
+	 *
+	 * @return Counter of the windows taken from the queue.
+	 */
+	private AtomicLong position(int reel) {
+		synchronized (queues) {
+			return positions.get(reel);
+		}
+	}
+
+	/**
+	 * Waits for the first spin.
+	 *
+	 * @return Number of the observed reels, zero for an empty input.
+	 *
+	 * @throws InterruptedException
+	 *             If the waiting is interrupted.
+	 */
+	public int reels() throws InterruptedException {
+		started.await();
+		check();
+
+		synchronized (queues) {
+			return queues.size();
+		}
+	}
+
+	/**
+	 * Waits for the first windows of a reel.
+	 *
+	 * @param reel
+	 *            Index of the reel.
+	 *
+	 * @return All windows available, empty if the input has ended.
+	 *
+	 * @throws InterruptedException
+	 *             If the waiting is interrupted.
+	 */
+	public List<int[]> first(int reel) throws InterruptedException {
+		List<int[]> result = new ArrayList<int[]>();
+		LinkedBlockingQueue<int[]> queue = queue(reel);
+
+		for (int[] window; result.isEmpty() == true;) {
+			window = queue.poll(100, TimeUnit.MILLISECONDS);
+			if (window != null) {
+				result.add(window);
+			} else if (finished == true && queue.isEmpty() == true) {
+				check();
+				break;
+			}
+		}
+		queue.drainTo(result);
+		position(reel).addAndGet(result.size());
+
+		return result;
+	}
+
+	/**
+	 * Applies the queued windows of a reel to its context without waiting.
+	 * Windows already counted in the context are skipped.
+	 *
+	 * @param reel
+	 *            Index of the reel.
+	 *
+	 * @param context
+	 *            Context of the reel, updated only if there are windows.
+	 *
+	 * @return Number of the applied windows.
+	 */
+	public int drain(int reel, ReelContext context) {
+		check();
+
+		LinkedBlockingQueue<int[]> queue = queue(reel);
+
+		AtomicLong position = position(reel);
+
+		int count = 0;
+		for (int[] window; (window = queue.poll()) != null;) {
+			if (position.getAndIncrement() >= context.windows()) {
+				context.observe(window);
+				count++;
+			}
+		}
+
+		if (count > 0) {
+			context.update();
+		}
+
+		return count;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void close() throws IOException {
+		reader.close();
+	}
+
+}
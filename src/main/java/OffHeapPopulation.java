@@ -0,0 +1,639 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Steady-state population stored in direct memory outside of the heap. Each
+ * individual is a record with a fixed stride, which keeps its fitness value,
+ * the version of its evaluation, the fingerprint of its canonical rotation,
+ * its length and its symbols. The symbols are shifted by the smallest symbol
+ * of the reel and stored with the smallest width which fits the alphabet, so
+ * very large populations do not create any objects for the individuals.
+ *
+ * Selection and crossover read the records directly. Only the evaluation
+ * needs a chromosome, so each worker has a scratch chromosome, which is
+ * written in a record when it is taken into the population. Records are
+ * split in pages, because a single direct buffer is limited to two
+ * gigabytes. The statistics of the reports are read from the fitness values
+ * and the fingerprints of the records, so the individuals are not decoded.
+ *
+ * @author Todor Balabanov
+ */
+class OffHeapPopulation {
+
+	/**
+	 * Position of the fitness value in a record.
+	 */
+	private static final int FITNESS = 0;
+
+	/**
+	 * Position of the evaluation version in a record.
+	 */
+	private static final int VERSION = 8;
+
+	/**
+	 * Position of the canonical rotation fingerprint in a record.
+	 */
+	private static final int FINGERPRINT = 16;
+
+	/**
+	 * Position of the sequence length in a record.
+	 */
+	private static final int LENGTH = 24;
+
+	/**
+	 * Position of the first symbol in a record.
+	 */
+	private static final int SYMBOLS = 28;
+
+	/**
+	 * Pages of records in direct memory.
+	 */
+	private final ByteBuffer[] pages;
+
+	/**
+	 * Number of records in a single page.
+	 */
+	private final int records;
+
+	/**
+	 * Size of a single record in bytes.
+	 */
+	private final int stride;
+
+	/**
+	 * Size of a single symbol in bytes (1, 2 or 4).
+	 */
+	private final int width;
+
+	/**
+	 * The smallest symbol, which is stored as zero.
+	 */
+	private final int minimum;
+
+	/**
+	 * The longest sequence which can be stored.
+	 */
+	private final int maxLength;
+
+	/**
+	 * Number of slots.
+	 */
+	private final int capacity;
+
+	/**
+	 * Number of used slots.
+	 */
+	private int size = 0;
+
+	/**
+	 * Slot of the best individual or minus one if it should be searched.
+	 */
+	private int best = -1;
+
+	/**
+	 * Canonical rotation fingerprints in an open addressing table.
+	 */
+	private final long[] keys;
+
+	/**
+	 * Number of individuals for each fingerprint, zero for an empty place.
+	 */
+	private final int[] counts;
+
+	/**
+	 * Number of the used places in the table.
+	 */
+	private int distinct = 0;
+
+	/**
+	 * Constructor with all parameters. The direct memory is allocated for all
+	 * slots in advance.
+	 *
+	 * @param capacity
+	 *            Number of slots.
+	 *
+	 * @param context
+	 *            Reconstruction context of the reel, which gives the longest
+	 *            sequence and the range of the symbols.
+	 */
+	public OffHeapPopulation(int capacity, ReelContext context) {
+		super();
+
+		if (capacity <= 0) {
+			throw new RuntimeException(
+					"Population size should be greater than zero!");
+		}
+
+		this.capacity = capacity;
+		this.maxLength = context.maxLength();
+		this.minimum = context.codec().minimum();
+
+		long range = context.codec().maximum() - minimum;
+		width = (range <= 0xFF) ? 1 : (range <= 0xFFFF) ? 2 : 4;
+		stride = SYMBOLS + width * maxLength;
+
+		/* Records do not cross the pages. */
+		records = Math.min(capacity, Integer.MAX_VALUE / stride);
+		pages = new ByteBuffer[(capacity + records - 1) / records];
+		for (int p = 0; p < pages.length; p++) {
+			pages[p] = ByteBuffer
+					.allocateDirect(
+							Math.min(records, capacity - p * records) * stride)
+					.order(ByteOrder.nativeOrder());
+		}
+
+		/* The table is at most half full. */
+		int places = Integer.highestOneBit(Math.max(1, capacity - 1)) << 2;
+		keys = new long[places];
+		counts = new int[places];
+	}
+
+	/**
+	 * Number of individuals getter.
+	 *
+	 * @return Population size.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Number of slots getter.
+	 *
+	 * @return Population capacity.
+	 */
+	public int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * Page of a slot.
+	 *
+	 * @param slot
+	 *            Slot of the individual.
+	 *
+	 * @return Page with the record of the slot.
+	 */
+	private ByteBuffer page(int slot) {
+		return pages[slot / records];
+	}
+
+	/**
+	 * Position of a slot in its page.
+	 *
+	 * @param slot
+	 *            Slot of the individual.
+	 *
+	 * @return Position of the record.
+	 */
+	private int offset(int slot) {
+		return (slot % records) * stride;
+	}
+
+	/**
+	 * Checks that a slot is used.
+	 *
+	 * @param slot
+	 *            Slot of the individual.
+	 */
+	private void check(int slot) {
+		if (slot < 0 || slot >= size) {
+			throw new RuntimeException("There is no individual in the slot!");
+		}
+	}
+
+	/**
+	 * Fitness value getter.
+	 *
+	 * @param slot
+	 *            Slot of the individual.
+	 *
+	 * @return Fitness value of the individual.
+	 */
+	public double fitness(int slot) {
+		check(slot);
+		return page(slot).getDouble(offset(slot) + FITNESS);
+	}
+
+	/**
+	 * Evaluation version getter.
+	 *
+	 * @param slot
+	 *            Slot of the individual.
+	 *
+	 * @return Version of the reel context used in the evaluation.
+	 */
+	public long version(int slot) {
+		check(slot);
+		return page(slot).getLong(offset(slot) + VERSION);
+	}
+
+	/**
+	 * Sequence length getter.
+	 *
+	 * @param slot
+	 *            Slot of the individual.
+	 *
+	 * @return Length of the sequence.
+	 */
+	public int length(int slot) {
+		check(slot);
+		return page(slot).getInt(offset(slot) + LENGTH);
+	}
+
+	/**
+	 * Reads a single symbol of a record.
+	 *
+	 * @param page
+	 *            Page of the record.
+	 *
+	 * @param position
+	 *            Position of the first symbol of the record.
+	 *
+	 * @param index
+	 *            Index of the symbol in the sequence.
+	 *
+	 * @return Symbol value.
+	 */
+	private int symbol(ByteBuffer page, int position, int index) {
+		switch (width) {
+		case 1:
+			return (page.get(position + index) & 0xFF) + minimum;
+		case 2:
+			return (page.getShort(position + 2 * index) & 0xFFFF) + minimum;
+		default:
+			return page.getInt(position + 4 * index) + minimum;
+		}
+	}
+
+	/**
+	 * Writes an individual in a slot without any bookkeeping. Different slots
+	 * can be written at the same time and the written slots are taken into
+	 * the population with the fill method.
+	 *
+	 * @param slot
+	 *            Slot of the individual, up to the capacity.
+	 *
+	 * @param individual
+	 *            Individual to be written.
+	 */
+	public void set(int slot, Chromosome individual) {
+		if (slot < 0 || slot >= capacity) {
+			throw new RuntimeException("There is no such slot!");
+		}
+
+		int length = individual.length();
+		if (length > maxLength) {
+			throw new RuntimeException(
+					"Sequence is longer than the population records!");
+		}
+
+		ByteBuffer page = page(slot);
+		int offset = offset(slot);
+		int[] genes = individual.genes();
+		page.putDouble(offset + FITNESS, individual.fitness());
+		page.putLong(offset + VERSION, individual.version());
+		page.putLong(offset + FINGERPRINT,
+				Rotations.fingerprint(genes, length));
+		page.putInt(offset + LENGTH, length);
+
+		int position = offset + SYMBOLS;
+		for (int i = 0; i < length; i++) {
+			int value = genes[i] - minimum;
+			if (width == 1) {
+				page.put(position + i, (byte) value);
+			} else if (width == 2) {
+				page.putShort(position + 2 * i, (short) value);
+			} else {
+				page.putInt(position + 4 * i, value);
+			}
+		}
+	}
+
+	/**
+	 * Takes the first slots written with the set method into the population.
+	 * The fingerprints are counted and the best individual is found again.
+	 *
+	 * @param size
+	 *            Number of the written slots.
+	 */
+	public void fill(int size) {
+		if (size < 0 || size > capacity) {
+			throw new RuntimeException("There is no such slot!");
+		}
+
+		/* Previous records can be already overwritten. */
+		Arrays.fill(counts, 0);
+		distinct = 0;
+
+		this.size = size;
+		for (int i = 0; i < size; i++) {
+			count(fingerprint(i), +1);
+		}
+		best = -1;
+	}
+
+	/**
+	 * Adds an individual in the first free slot.
+	 *
+	 * @param individual
+	 *            Individual to be added.
+	 *
+	 * @return Slot of the individual.
+	 */
+	public int add(Chromosome individual) {
+		if (size >= capacity) {
+			throw new RuntimeException("There is no free slot!");
+		}
+
+		set(size, individual);
+		size++;
+		count(fingerprint(size - 1), +1);
+		track(size - 1);
+		return size - 1;
+	}
+
+	/**
+	 * Replaces an individual in a slot with a copy of another individual.
+	 *
+	 * @param slot
+	 *            Slot of the individual.
+	 *
+	 * @param individual
+	 *            New individual, which stays free for reuse.
+	 */
+	public void replace(int slot, Chromosome individual) {
+		double previous = fitness(slot);
+
+		count(fingerprint(slot), -1);
+		set(slot, individual);
+		count(fingerprint(slot), +1);
+		if (slot == best && individual.fitness() < previous) {
+			best = -1;
+		}
+		track(slot);
+	}
+
+	/**
+	 * Reads an individual in a scratch chromosome. The storage of the
+	 * chromosome is reused, when it is big enough.
+	 *
+	 * @param slot
+	 *            Slot of the individual.
+	 *
+	 * @param scratch
+	 *            Chromosome to be filled.
+	 */
+	public void load(int slot, Chromosome scratch) {
+		int length = length(slot);
+		ByteBuffer page = page(slot);
+		int offset = offset(slot);
+
+		scratch.length(length);
+		int[] genes = scratch.genes();
+		for (int i = 0; i < length; i++) {
+			genes[i] = symbol(page, offset + SYMBOLS, i);
+		}
+		scratch.fitness(page.getDouble(offset + FITNESS));
+		scratch.version(page.getLong(offset + VERSION));
+	}
+
+	/**
+	 * Crossover between the individuals of two slots, where the child is
+	 * written in a scratch chromosome. It gives the same child as the
+	 * crossover of the chromosomes with the same pseudo-random numbers.
+	 *
+	 * @param first
+	 *            Slot of the first parent.
+	 *
+	 * @param second
+	 *            Slot of the second parent.
+	 *
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 *
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 *
+	 * @param child
+	 *            Chromosome for the child.
+	 */
+	public void crossover(int first, int second, ReelContext context,
+			RandomSource random, Chromosome child) {
+		int firstLength = length(first);
+		int secondLength = length(second);
+		ByteBuffer firstPage = page(first);
+		ByteBuffer secondPage = page(second);
+		int firstPosition = offset(first) + SYMBOLS;
+		int secondPosition = offset(second) + SYMBOLS;
+
+		/* Mating threshold is around half of the genes. */
+		double threshold = 0.5 + random.nextGaussian() * 0.2;
+
+		/* Child has variable length. */
+		child.length(context.minLength() + random
+				.nextInt(context.maxLength() - context.minLength() + 1));
+
+		int[] sequence = child.genes();
+		for (int i = 0, j = 0, k = 0; i < child.length(); i++) {
+			if (random.nextDouble() < threshold) {
+				sequence[i] = symbol(firstPage, firstPosition, j);
+			} else {
+				sequence[i] = symbol(secondPage, secondPosition, k);
+			}
+
+			/* Parents are shorter or longer than the child. */
+			if (++j == firstLength) {
+				j = 0;
+			}
+			if (++k == secondLength) {
+				k = 0;
+			}
+		}
+	}
+
+	/**
+	 * Canonical rotation fingerprint of a record.
+	 *
+	 * @param slot
+	 *            Slot of the individual.
+	 *
+	 * @return Fingerprint written with the record.
+	 */
+	private long fingerprint(int slot) {
+		return page(slot).getLong(offset(slot) + FINGERPRINT);
+	}
+
+	/**
+	 * Place of a fingerprint in the table or the empty place for it.
+	 *
+	 * @param key
+	 *            Canonical rotation fingerprint.
+	 *
+	 * @return Place in the table.
+	 */
+	private int place(long key) {
+		int mask = keys.length - 1;
+		int i = (int) (key ^ (key >>> 32)) & mask;
+		while (counts[i] != 0 && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+
+		return i;
+	}
+
+	/**
+	 * Updates the counter of a fingerprint.
+	 *
+	 * @param key
+	 *            Canonical rotation fingerprint.
+	 *
+	 * @param amount
+	 *            Plus one when an individual enters a slot and minus one when
+	 *            it leaves a slot.
+	 */
+	private void count(long key, int amount) {
+		int i = place(key);
+		if (amount > 0) {
+			if (counts[i] == 0) {
+				distinct++;
+			}
+			keys[i] = key;
+			counts[i]++;
+			return;
+		}
+		if (counts[i] == 0 || --counts[i] > 0) {
+			return;
+		}
+		distinct--;
+
+		/* Later keys are shifted back, so the probing finds them. */
+		int mask = keys.length - 1;
+		for (int j = (i + 1) & mask; counts[j] != 0; j = (j + 1) & mask) {
+			int home = (int) (keys[j] ^ (keys[j] >>> 32)) & mask;
+			boolean between = (i <= j)
+					? (i < home && home <= j)
+					: (i < home || home <= j);
+			if (between == false) {
+				keys[i] = keys[j];
+				counts[i] = counts[j];
+				counts[j] = 0;
+				i = j;
+			}
+		}
+	}
+
+	/**
+	 * Checks for a rotation equivalent individual in the population. The
+	 * check uses 64-bit fingerprints only.
+	 *
+	 * @param candidate
+	 *            Chromosome to be checked.
+	 *
+	 * @return True if a rotation of the candidate is in the population.
+	 */
+	public boolean contains(Chromosome candidate) {
+		return counts[place(Rotations.fingerprint(candidate.genes(),
+				candidate.length()))] != 0;
+	}
+
+	/**
+	 * Updates the best individual for a changed slot.
+	 *
+	 * @param slot
+	 *            Changed slot.
+	 */
+	private void track(int slot) {
+		if (best != -1 && fitness(slot) > fitness(best)) {
+			best = slot;
+		}
+
+		/* The first individual is the best one. */
+		if (best == -1 && size == 1) {
+			best = slot;
+		}
+	}
+
+	/**
+	 * Slot of the best individual getter.
+	 *
+	 * @return Slot with the highest fitness value.
+	 */
+	public int bestIndex() {
+		if (size <= 0) {
+			throw new RuntimeException(
+					"Population size should be greater than zero!");
+		}
+
+		/* Search is needed only when the best individual was replaced. */
+		if (best == -1) {
+			best = 0;
+			for (int i = 1; i < size; i++) {
+				if (fitness(i) > fitness(best)) {
+					best = i;
+				}
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * The best individual getter. The individual is read in a new
+	 * chromosome.
+	 *
+	 * @return Individual with the highest fitness value.
+	 */
+	public Chromosome best() {
+		Chromosome result = new Chromosome();
+		load(bestIndex(), result);
+		return result;
+	}
+
+	/**
+	 * Slot of the worst individual getter.
+	 *
+	 * @return Slot with the lowest fitness value.
+	 */
+	public int worstIndex() {
+		if (size <= 0) {
+			throw new RuntimeException(
+					"Population size should be greater than zero!");
+		}
+
+		int worst = 0;
+		for (int i = 1; i < size; i++) {
+			if (fitness(i) < fitness(worst)) {
+				worst = i;
+			}
+		}
+
+		return worst;
+	}
+
+	/**
+	 * Sum of the fitness values getter.
+	 *
+	 * @return Sum of the fitness values of all individuals.
+	 */
+	public double total() {
+		double sum = 0;
+		for (int i = 0; i < size; i++) {
+			sum += fitness(i);
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Number of the distinct individuals getter. Rotations of the same
+	 * sequence are counted once and only the fingerprints are compared.
+	 *
+	 * @return Number of the distinct canonical rotations.
+	 */
+	public int distinct() {
+		return distinct;
+	}
+
+}
@@ -0,0 +1,36 @@
+/**
+ * Measured phases of the reconstruction.
+ *
+ * @author Todor Balabanov
+ */
+enum Phase {
+	/**
+	 * Build of the chunks histogram of the original.
+	 */
+	HISTOGRAM,
+
+	/**
+	 * Chunks sampling or windows counting of a candidate.
+	 */
+	SAMPLING,
+
+	/**
+	 * Distance between a candidate and the original.
+	 */
+	DISTANCE,
+
+	/**
+	 * Crossover of the parents.
+	 */
+	CROSSOVER,
+
+	/**
+	 * Mutation of a child.
+	 */
+	MUTATION,
+
+	/**
+	 * Selection of the parents and the child slot.
+	 */
+	SELECTION;
+}
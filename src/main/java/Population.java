@@ -0,0 +1,327 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Steady-state population stored in fixed array slots. Individuals are
+ * replaced in place and the best individual is tracked on each change.
+ * Fingerprints of the
+ * canonical rotations are counted, so rotation equivalent duplicates can be
+ * found without comparing them with all individuals.
+ *
+ * Fitness values of the individuals should not be changed while they are in
+ * the population, otherwise the tracking of the best becomes wrong. Individuals evaluated again should be rescored through the
+ * population.
+ *
+ * @author Todor Balabanov
+ */
+class Population implements Iterable<Chromosome> {
+
+	/**
+	 * Slots of the individuals.
+	 */
+	private final Chromosome[] individuals;
+
+	/**
+	 * Number of used slots.
+	 */
+	private int size = 0;
+
+	/**
+	 * Slot of the best individual or minus one if it should be searched.
+	 */
+	private int best = -1;
+
+	/**
+	 * Canonical rotation fingerprints of the individuals in the slots.
+	 */
+	private final long[] fingerprints;
+
+	/**
+	 * Number of individuals for each canonical rotation fingerprint.
+	 */
+	private final Map<Long, Integer> duplicates = new HashMap<Long, Integer>();
+
+	/**
+	 * Constructor with all parameters.
+	 *
+	 * @param capacity
+	 *            Number of slots.
+	 */
+	public Population(int capacity) {
+		super();
+
+		if (capacity <= 0) {
+			throw new RuntimeException(
+					"Population size should be greater than zero!");
+		}
+
+		individuals = new Chromosome[capacity];
+		fingerprints = new long[capacity];
+	}
+
+	/**
+	 * Number of individuals getter.
+	 *
+	 * @return Population size.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Number of slots getter.
+	 *
+	 * @return Population capacity.
+	 */
+	public int capacity() {
+		return individuals.length;
+	}
+
+	/**
+	 * Individual getter.
+	 *
+	 * @param index
+	 *            Slot of the individual.
+	 *
+	 * @return Individual in the slot.
+	 */
+	public Chromosome get(int index) {
+		if (index < 0 || index >= size) {
+			throw new RuntimeException("There is no individual in the slot!");
+		}
+
+		return individuals[index];
+	}
+
+	/**
+	 * Adds an individual in the first free slot.
+	 *
+	 * @param individual
+	 *            Individual to be added.
+	 *
+	 * @return Slot of the individual.
+	 */
+	public int add(Chromosome individual) {
+		if (size >= individuals.length) {
+			throw new RuntimeException("There is no free slot!");
+		}
+
+		individuals[size] = individual;
+		count(size, +1);
+		track(size);
+		return size++;
+	}
+
+	/**
+	 * Replaces an individual in a slot.
+	 *
+	 * @param index
+	 *            Slot of the individual.
+	 *
+	 * @param individual
+	 *            New individual.
+	 *
+	 * @return The replaced individual.
+	 */
+	public Chromosome replace(int index, Chromosome individual) {
+		Chromosome previous = get(index);
+
+		count(index, -1);
+		individuals[index] = individual;
+		count(index, +1);
+		if (index == best && individual.fitness() < previous.fitness()) {
+			best = -1;
+		}
+		track(index);
+
+		return previous;
+	}
+
+	/**
+	 * Changes the fitness of an individual in the population, when it is
+	 * evaluated again.
+	 *
+	 * @param index
+	 *            Slot of the individual.
+	 *
+	 * @param fitness
+	 *            New fitness value.
+	 */
+	public void rescore(int index, double fitness) {
+		Chromosome individual = get(index);
+
+		double previous = individual.fitness();
+		individual.fitness(fitness);
+		if (index == best && fitness < previous) {
+			best = -1;
+		}
+		track(index);
+	}
+
+	/**
+	 * Updates the fingerprints counters for a slot.
+	 *
+	 * @param index
+	 *            Changed slot.
+	 *
+	 * @param amount
+	 *            Plus one when an individual enters the slot and minus one
+	 *            when it leaves the slot.
+	 */
+	private void count(int index, int amount) {
+		if (amount > 0) {
+			fingerprints[index] = Rotations.fingerprint(
+					individuals[index].genes(), individuals[index].length());
+		}
+
+		Long key = fingerprints[index];
+		Integer count = duplicates.get(key);
+		int value = (count == null ? 0 : count) + amount;
+		if (value <= 0) {
+			duplicates.remove(key);
+		} else {
+			duplicates.put(key, value);
+		}
+	}
+
+	/**
+	 * Checks for a rotation equivalent individual in the population. The
+	 * check uses 64-bit fingerprints only.
+	 *
+	 * @param candidate
+	 *            Chromosome to be checked.
+	 *
+	 * @return True if a rotation of the candidate is in the population.
+	 */
+	public boolean contains(Chromosome candidate) {
+		return duplicates.containsKey(
+				Rotations.fingerprint(candidate.genes(), candidate.length()));
+	}
+
+	/**
+	 * Updates the best individual for a changed slot.
+	 *
+	 * @param index
+	 *            Changed slot.
+	 */
+	private void track(int index) {
+		if (best != -1
+				&& individuals[index].fitness() > individuals[best].fitness()) {
+			best = index;
+		}
+
+		/* The first individual is the best one. */
+		if (best == -1 && size == 0) {
+			best = index;
+		}
+	}
+
+	/**
+	 * Slot of the best individual getter.
+	 *
+	 * @return Slot with the highest fitness value.
+	 */
+	public int bestIndex() {
+		if (size <= 0) {
+			throw new RuntimeException(
+					"Population size should be greater than zero!");
+		}
+
+		/* Search is needed only when the best individual was replaced. */
+		if (best == -1) {
+			best = 0;
+			for (int i = 1; i < size; i++) {
+				if (individuals[i].fitness() > individuals[best].fitness()) {
+					best = i;
+				}
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * The best individual getter.
+	 *
+	 * @return Individual with the highest fitness value.
+	 */
+	public Chromosome best() {
+		return individuals[bestIndex()];
+	}
+
+	/**
+	 * Writes the individuals in the order of their slots.
+	 *
+	 * @param out
+	 *            Binary output.
+	 *
+	 * @throws IOException
+	 *             If the population can not be written.
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(individuals.length);
+		out.writeInt(size);
+		out.writeInt(best);
+		for (int i = 0; i < size; i++) {
+			individuals[i].write(out);
+		}
+	}
+
+	/**
+	 * Reads a population written before. Individuals get the same slots and
+	 * the same best individual is tracked.
+	 *
+	 * @param in
+	 *            Binary input.
+	 *
+	 * @return Population with the stored individuals.
+	 *
+	 * @throws IOException
+	 *             If the population can not be read.
+	 */
+	public static Population read(DataInput in) throws IOException {
+		Population result = new Population(in.readInt());
+		int size = in.readInt();
+		int best = in.readInt();
+		for (int i = 0; i < size; i++) {
+			result.add(Chromosome.read(in));
+		}
+
+		if (best < -1 || best >= size) {
+			throw new RuntimeException("Invalid slot of the best individual!");
+		}
+		result.best = best;
+
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Iterator<Chromosome> iterator() {
+		return new Iterator<Chromosome>() {
+			private int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@Override
+			public Chromosome next() {
+				return get(index++);
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+}
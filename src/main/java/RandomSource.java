@@ -0,0 +1,238 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Seedable and splittable source of pseudo-random numbers. It uses the
+ * SplitMix64 algorithm of java.util.SplittableRandom, but the generator
+ * state is kept in plain fields, so it can be stored and restored. Each
+ * worker, island or recursive subtree should use its own split instance,
+ * which makes the results reproducible for a given seed without any shared
+ * state between the threads.
+ *
+ * @author Todor Balabanov
+ */
+class RandomSource {
+
+	/**
+	 * Default gamma value (odd integer closest to 2^64 divided by the golden
+	 * ratio).
+	 */
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * Scale of 53 random bits to a double value between 0 and 1.
+	 */
+	private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+	/**
+	 * Current generator seed.
+	 */
+	private long seed;
+
+	/**
+	 * Seed increment, always odd.
+	 */
+	private long gamma;
+
+	/**
+	 * Second Gaussian value generated by the polar method.
+	 */
+	private double nextGaussian = 0;
+
+	/**
+	 * True if the second Gaussian value is available.
+	 */
+	private boolean haveNextGaussian = false;
+
+	/**
+	 * Constructor with a seed.
+	 *
+	 * @param seed
+	 *            Initial seed.
+	 */
+	public RandomSource(long seed) {
+		this(seed, GOLDEN_GAMMA);
+	}
+
+	/**
+	 * Constructor with all parameters.
+	 *
+	 * @param seed
+	 *            Initial seed.
+	 *
+	 * @param gamma
+	 *            Seed increment.
+	 */
+	private RandomSource(long seed, long gamma) {
+		super();
+		this.seed = seed;
+		this.gamma = gamma | 1L;
+	}
+
+	/**
+	 * MurmurHash3 64-bit finalizer variant used by SplitMix64.
+	 *
+	 * @param z
+	 *            Value to be mixed.
+	 *
+	 * @return Mixed value.
+	 */
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Gamma values mixer, which makes sure there are enough bit transitions.
+	 *
+	 * @param z
+	 *            Value to be mixed.
+	 *
+	 * @return Odd gamma value.
+	 */
+	private static long mixGamma(long z) {
+		z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+		z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		z = (z ^ (z >>> 33)) | 1L;
+		int n = Long.bitCount(z ^ (z >>> 1));
+		return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+	}
+
+	/**
+	 * Creates a new independent generator. The current generator state is
+	 * changed, so the sequence of splits is also reproducible.
+	 *
+	 * @return New generator.
+	 */
+	public RandomSource split() {
+		long first = nextSeed();
+		return new RandomSource(mix64(first), mixGamma(nextSeed()));
+	}
+
+	/**
+	 * Advances the seed.
+	 *
+	 * @return Next seed.
+	 */
+	private long nextSeed() {
+		return (seed += gamma);
+	}
+
+	/**
+	 * Random long value.
+	 *
+	 * @return Pseudo-random 64 bits.
+	 */
+	public long nextLong() {
+		return mix64(nextSeed());
+	}
+
+	/**
+	 * Random integer value.
+	 *
+	 * @return Pseudo-random 32 bits.
+	 */
+	public int nextInt() {
+		return (int) (mix64(nextSeed()) >>> 32);
+	}
+
+	/**
+	 * Uniformly distributed integer value between zero (inclusive) and the
+	 * bound (exclusive).
+	 *
+	 * @param bound
+	 *            Upper bound, should be positive.
+	 *
+	 * @return Pseudo-random integer value.
+	 */
+	public int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new RuntimeException("Bound should be positive!");
+		}
+
+		int r = nextInt();
+		int m = bound - 1;
+
+		/* Power of two bounds take the highest bits. */
+		if ((bound & m) == 0) {
+			return r & m;
+		}
+
+		/* Rejection of the values in the incomplete last interval. */
+		for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = nextInt() >>> 1) {
+		}
+		return r;
+	}
+
+	/**
+	 * Uniformly distributed double value between zero (inclusive) and one
+	 * (exclusive).
+	 *
+	 * @return Pseudo-random double value.
+	 */
+	public double nextDouble() {
+		return (nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+
+	/**
+	 * Normally distributed double value with mean zero and standard deviation
+	 * one. The Marsaglia polar method is used.
+	 *
+	 * @return Pseudo-random Gaussian value.
+	 */
+	public double nextGaussian() {
+		if (haveNextGaussian == true) {
+			haveNextGaussian = false;
+			return nextGaussian;
+		}
+
+		double v1, v2, s;
+		do {
+			v1 = 2 * nextDouble() - 1;
+			v2 = 2 * nextDouble() - 1;
+			s = v1 * v1 + v2 * v2;
+		} while (s >= 1 || s == 0);
+
+		double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+		nextGaussian = v2 * multiplier;
+		haveNextGaussian = true;
+		return v1 * multiplier;
+	}
+
+	/**
+	 * Writes the generator state, so the sequence can be continued later.
+	 *
+	 * @param out
+	 *            Binary output.
+	 *
+	 * @throws IOException
+	 *             If the state can not be written.
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeLong(seed);
+		out.writeLong(gamma);
+		out.writeDouble(nextGaussian);
+		out.writeBoolean(haveNextGaussian);
+	}
+
+	/**
+	 * Reads a generator state written before.
+	 *
+	 * @param in
+	 *            Binary input.
+	 *
+	 * @return Generator which continues the stored sequence.
+	 *
+	 * @throws IOException
+	 *             If the state can not be read.
+	 */
+	public static RandomSource read(DataInput in) throws IOException {
+		RandomSource result = new RandomSource(in.readLong(), in.readLong());
+		result.nextGaussian = in.readDouble();
+		result.haveNextGaussian = in.readBoolean();
+		return result;
+	}
+
+}
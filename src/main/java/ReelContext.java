@@ -0,0 +1,579 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reconstruction context of a single reel. It keeps the chunks histogram of
+ * the original sequence, the estimated chromosome length limits and the
+ * original chromosome. Each reel has its own context, so different reels can
+ * be reconstructed at the same time.
+ *
+ * A context created from observations is updated online, when new windows of
+ * the reel are observed. Each update increments the version of the context,
+ * so fitness values calculated against an older target can be recognized.
+ * Updates should be done by the thread which runs the reconstruction, while
+ * no evaluation is in progress.
+ *
+ * @author Todor Balabanov
+ */
+class ReelContext {
+
+	/**
+	 * Original reel as numbers.
+	 */
+	private final int[] reel;
+
+	/**
+	 * Codec of the chunks in the histogram.
+	 */
+	private ChunkCodec codec;
+
+	/**
+	 * Chunks histogram is used to estimate how often chunks are met in the
+	 * original sequence. This estimation is very useful for estimating how many
+	 * chunks to be presented in the original chromosome.
+	 */
+	private Histogram histogram;
+
+	/**
+	 * Counts of the observed chunks or null if the context is not updated
+	 * online.
+	 */
+	private Histogram observations = null;
+
+	/**
+	 * Minimum count of the least probable chunk in the histogram.
+	 */
+	private int threshold = 0;
+
+	/**
+	 * Number of the windows counted in the observations.
+	 */
+	private long windows = 0;
+
+	/**
+	 * Chromosome minimal length.
+	 */
+	private int minLength;
+
+	/**
+	 * Chromosome maximal length.
+	 */
+	private int maxLength;
+
+	/**
+	 * The chromosome of the original sequence.
+	 */
+	private Chromosome original;
+
+	/**
+	 * Number of the updates of the histogram.
+	 */
+	private long version = 0;
+
+	/**
+	 * Counters of the reconstruction.
+	 */
+	private final Metrics metrics;
+
+	/**
+	 * Memoized fitness values of the reel or null.
+	 */
+	private FitnessCache cache = null;
+
+	/**
+	 * Creates a packing codec for the chunks of a reel.
+	 *
+	 * @param reel
+	 *            Pattern as numbers.
+	 *
+	 * @param chunkSize
+	 *            The size of the chunks represented in the chromosome.
+	 *
+	 * @return Codec for the chunks of the reel.
+	 */
+	private static ChunkCodec codec(int[] reel, int chunkSize) {
+		/* Chunks are counted as packed codes. */
+		ChunkCodec codec = ChunkCodec.of(reel, reel.length, chunkSize);
+		if (codec.packable() == false) {
+			throw new RuntimeException(
+					"Chunks of the reel can not be packed in a single code!");
+		}
+
+		return codec;
+	}
+
+	/**
+	 * Creates a context from an original sequence pattern by random sampling
+	 * of the visible chunks. It is used when only observations of the
+	 * sequence are available.
+	 *
+	 * @param reel
+	 *            Pattern as numbers.
+	 *
+	 * @param chunkSize
+	 *            The size of the chunks represented in the chromosome.
+	 *
+	 * @param histogramThreshold
+	 *            Minimum count of the least probable chunk from the sample.
+	 *
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 *
+	 * @return Reconstruction context of the reel.
+	 */
+	public static ReelContext sampling(int[] reel, int chunkSize,
+			int histogramThreshold, RandomSource random) {
+		Metrics metrics = new Metrics();
+		long start = metrics.time();
+		ChunkCodec codec = codec(reel, chunkSize);
+
+		/* Build a chunks histogram. */
+		Histogram histogram = new Histogram();
+		while (histogram.least() < histogramThreshold) {
+			/*
+			 * The histogram keeps track of the current least probable chunk,
+			 * so there is no need to check all chunks after each sample.
+			 */
+			histogram.add(codec.window(reel, reel.length,
+					random.nextInt(reel.length)));
+		}
+		// System.err.println(histogram);
+		metrics.phase(Phase.HISTOGRAM, start);
+
+		return new ReelContext(reel, codec, histogram, metrics);
+	}
+
+	/**
+	 * Creates a context from a fully known original sequence. Each circular
+	 * window is read exactly once and the counts are scaled, so the least
+	 * probable chunk reaches the threshold as it does in the sampling.
+	 *
+	 * @param reel
+	 *            Pattern as numbers.
+	 *
+	 * @param chunkSize
+	 *            The size of the chunks represented in the chromosome.
+	 *
+	 * @param histogramThreshold
+	 *            Minimum count of the least probable chunk.
+	 *
+	 * @return Reconstruction context of the reel.
+	 */
+	public static ReelContext exact(int[] reel, int chunkSize,
+			int histogramThreshold) {
+		Metrics metrics = new Metrics();
+		long start = metrics.time();
+		ChunkCodec codec = codec(reel, chunkSize);
+
+		/* Count each circular window once. */
+		Histogram windows = new Histogram();
+		for (int position = 0; position < reel.length; position++) {
+			windows.add(codec.window(reel, reel.length, position));
+		}
+
+		/*
+		 * Exact proportions are kept by an integer scale of the counts.
+		 */
+		int scale = Math.max(1, (histogramThreshold + windows.least() - 1)
+				/ windows.least());
+		Histogram histogram = new Histogram();
+		for (int i = 0; i < windows.distinct(); i++) {
+			histogram.add(windows.code(i), windows.count(i) * scale);
+		}
+		// System.err.println(histogram);
+		metrics.phase(Phase.HISTOGRAM, start);
+
+		return new ReelContext(reel, codec, histogram, metrics);
+	}
+
+	/**
+	 * Creates a context from observed windows of a reel, when the reel itself
+	 * is not known. Each window is counted with all of its chunks and the
+	 * context can be updated later with more windows.
+	 *
+	 * @param windows
+	 *            Observed windows, at least one of them as long as a chunk.
+	 *
+	 * @param chunkSize
+	 *            The size of the chunks represented in the chromosome.
+	 *
+	 * @param histogramThreshold
+	 *            Minimum count of the least probable chunk.
+	 *
+	 * @return Reconstruction context of the reel.
+	 */
+	public static ReelContext streaming(Iterable<int[]> windows,
+			int chunkSize, int histogramThreshold) {
+		Metrics metrics = new Metrics();
+		long start = metrics.time();
+
+		/* Symbols range of the first observations. */
+		int minimum = Integer.MAX_VALUE;
+		int maximum = Integer.MIN_VALUE;
+		for (int[] window : windows) {
+			for (int value : window) {
+				minimum = Math.min(minimum, value);
+				maximum = Math.max(maximum, value);
+			}
+		}
+		if (minimum > maximum) {
+			throw new RuntimeException("There are no observed symbols!");
+		}
+
+		ChunkCodec codec = new ChunkCodec(chunkSize, minimum, maximum);
+		if (codec.packable() == false) {
+			throw new RuntimeException(
+					"Chunks of the reel can not be packed in a single code!");
+		}
+
+		long count = 0;
+		Histogram observations = new Histogram();
+		for (int[] window : windows) {
+			count(codec, window, observations);
+			count++;
+		}
+		if (observations.distinct() == 0) {
+			throw new RuntimeException(
+					"Observed windows should not be shorter than the chunks!");
+		}
+
+		Histogram histogram = new Histogram();
+		scale(observations, histogramThreshold, histogram);
+		metrics.phase(Phase.HISTOGRAM, start);
+
+		ReelContext context = new ReelContext(new int[0], codec, histogram,
+				metrics);
+		context.observations = observations;
+		context.threshold = histogramThreshold;
+		context.windows = count;
+		return context;
+	}
+
+	/**
+	 * Counts all chunks of an observed window.
+	 *
+	 * @param codec
+	 *            Codec of the chunks.
+	 *
+	 * @param window
+	 *            Observed window.
+	 *
+	 * @param counts
+	 *            Histogram to be updated.
+	 */
+	private static void count(ChunkCodec codec, int[] window,
+			Histogram counts) {
+		for (int position = 0; position + codec.size() <= window.length; position++) {
+			counts.add(codec.encode(window, position));
+		}
+	}
+
+	/**
+	 * Scales the observed counts, so the least probable chunk has about the
+	 * threshold count. This keeps the proportions of the chunks, while the
+	 * histogram does not grow with the number of observations.
+	 *
+	 * @param observations
+	 *            Counts of the observed chunks.
+	 *
+	 * @param threshold
+	 *            Minimum count of the least probable chunk.
+	 *
+	 * @param histogram
+	 *            Scaled histogram.
+	 */
+	private static void scale(Histogram observations, int threshold,
+			Histogram histogram) {
+		double scale = (double) threshold / observations.least();
+
+		histogram.clear();
+		for (int i = 0; i < observations.distinct(); i++) {
+			histogram.add(observations.code(i), (int) Math.max(1,
+					Math.round(observations.count(i) * scale)));
+		}
+	}
+
+	/**
+	 * Adds an observed window. The histogram is changed only when the
+	 * observations are applied.
+	 *
+	 * @param window
+	 *            Observed window.
+	 */
+	public void observe(int[] window) {
+		if (observations == null) {
+			throw new RuntimeException(
+					"Only contexts of observations can be updated!");
+		}
+
+		/* Symbols out of the range need a wider codec. */
+		int minimum = codec.minimum();
+		long maximum = codec.maximum();
+		for (int value : window) {
+			minimum = Math.min(minimum, value);
+			maximum = Math.max(maximum, value);
+		}
+		if (minimum < codec.minimum() || maximum > codec.maximum()) {
+			ChunkCodec wider = new ChunkCodec(codec.size(), minimum,
+					(int) maximum);
+			if (wider.packable() == false) {
+				throw new RuntimeException(
+						"Chunks of the reel can not be packed in a single code!");
+			}
+
+			int[] chunk = new int[codec.size()];
+			Histogram recoded = new Histogram();
+			for (int i = 0; i < observations.distinct(); i++) {
+				codec.decode(observations.code(i), chunk, 0);
+				recoded.add(wider.encode(chunk, 0), observations.count(i));
+			}
+			observations = recoded;
+			codec = wider;
+		}
+
+		count(codec, window, observations);
+		windows++;
+	}
+
+	/**
+	 * Applies the observed windows to the histogram, the length limits and
+	 * the original chromosome, and increments the version.
+	 */
+	public void update() {
+		if (observations == null) {
+			throw new RuntimeException(
+					"Only contexts of observations can be updated!");
+		}
+
+		long start = metrics.time();
+		scale(observations, threshold, histogram);
+		estimate();
+		version++;
+		metrics.phase(Phase.HISTOGRAM, start);
+	}
+
+	/**
+	 * Writes the reel, the codec and the histograms with the number of the
+	 * observed windows, the version and the metrics.
+	 *
+	 * @param out
+	 *            Binary output.
+	 *
+	 * @throws IOException
+	 *             If the context can not be written.
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(reel.length);
+		for (int value : reel) {
+			out.writeInt(value);
+		}
+
+		out.writeInt(codec.size());
+		out.writeInt(codec.minimum());
+		out.writeInt((int) codec.maximum());
+		histogram.write(out);
+
+		out.writeBoolean(observations != null);
+		if (observations != null) {
+			observations.write(out);
+			out.writeInt(threshold);
+			out.writeLong(windows);
+		}
+		out.writeLong(version);
+		metrics.write(out);
+	}
+
+	/**
+	 * Reads a context written before. The length limits and the original
+	 * chromosome are estimated again from the histogram.
+	 *
+	 * @param in
+	 *            Binary input.
+	 *
+	 * @return Reconstruction context of the reel.
+	 *
+	 * @throws IOException
+	 *             If the context can not be read.
+	 */
+	public static ReelContext read(DataInput in) throws IOException {
+		int[] reel = new int[in.readInt()];
+		for (int i = 0; i < reel.length; i++) {
+			reel[i] = in.readInt();
+		}
+
+		ChunkCodec codec = new ChunkCodec(in.readInt(), in.readInt(),
+				in.readInt());
+		Histogram histogram = Histogram.read(in);
+
+		Histogram observations = null;
+		int threshold = 0;
+		long windows = 0;
+		if (in.readBoolean() == true) {
+			observations = Histogram.read(in);
+			threshold = in.readInt();
+			windows = in.readLong();
+		}
+		long version = in.readLong();
+
+		ReelContext context = new ReelContext(reel, codec, histogram,
+				Metrics.read(in));
+		context.observations = observations;
+		context.threshold = threshold;
+		context.windows = windows;
+		context.version = version;
+
+		return context;
+	}
+
+	/**
+	 * Constructor with all parameters. The chromosome length limits are
+	 * estimated and the original chromosome is created from the histogram.
+	 *
+	 * @param reel
+	 *            Pattern as numbers.
+	 *
+	 * @param codec
+	 *            Codec of the chunks in the histogram.
+	 *
+	 * @param histogram
+	 *            Chunks histogram of the original sequence.
+	 *
+	 * @param metrics
+	 *            Counters of the reconstruction.
+	 */
+	private ReelContext(int[] reel, ChunkCodec codec, Histogram histogram,
+			Metrics metrics) {
+		this.reel = reel;
+		this.codec = codec;
+		this.histogram = histogram;
+		this.metrics = metrics;
+
+		estimate();
+	}
+
+	/**
+	 * Estimates the chromosome length limits and creates the original
+	 * chromosome from the histogram.
+	 */
+	private void estimate() {
+		/* Estimation of the unique chunks and unique values amount. */
+		int[] chunk = new int[codec.size()];
+		Set<Integer> uniqueValues = new HashSet<Integer>();
+		for (int i = 0; i < histogram.distinct(); i++) {
+			codec.decode(histogram.code(i), chunk, 0);
+			for (int value : chunk) {
+				uniqueValues.add(value);
+			}
+		}
+		long chunksTotalLength = histogram.total() * codec.size();
+		minLength = uniqueValues.size();
+		maxLength = (int) (chunksTotalLength / histogram.distinct());
+		// System.err.println(uniqueValues);
+
+		original = Chromosome.initializeOriginal(this);
+	}
+
+	/**
+	 * Original reel getter.
+	 *
+	 * @return Pattern as numbers.
+	 */
+	public int[] reel() {
+		return reel;
+	}
+
+	/**
+	 * Chunks codec getter.
+	 *
+	 * @return Codec of the chunks in the histogram.
+	 */
+	public ChunkCodec codec() {
+		return codec;
+	}
+
+	/**
+	 * Chunks histogram getter.
+	 *
+	 * @return Chunks histogram of the original sequence.
+	 */
+	public Histogram histogram() {
+		return histogram;
+	}
+
+	/**
+	 * Chromosome minimal length getter.
+	 *
+	 * @return Minimal length.
+	 */
+	public int minLength() {
+		return minLength;
+	}
+
+	/**
+	 * Chromosome maximal length getter.
+	 *
+	 * @return Maximal length.
+	 */
+	public int maxLength() {
+		return maxLength;
+	}
+
+	/**
+	 * Original chromosome getter.
+	 *
+	 * @return The chromosome of the original sequence.
+	 */
+	public Chromosome original() {
+		return original;
+	}
+
+	/**
+	 * Number of the histogram updates getter.
+	 *
+	 * @return Version of the context.
+	 */
+	public long version() {
+		return version;
+	}
+
+	/**
+	 * Number of the observed windows getter.
+	 *
+	 * @return Number of the windows counted in the observations.
+	 */
+	public long windows() {
+		return windows;
+	}
+
+	/**
+	 * Counters of the reconstruction getter.
+	 *
+	 * @return Metrics of the reel.
+	 */
+	public Metrics metrics() {
+		return metrics;
+	}
+
+	/**
+	 * Fitness cache getter.
+	 *
+	 * @return Memoized fitness values of the reel or null.
+	 */
+	public FitnessCache cache() {
+		return cache;
+	}
+
+	/**
+	 * Fitness cache setter.
+	 *
+	 * @param cache
+	 *            Memoized fitness values of the reel or null.
+	 */
+	public void cache(FitnessCache cache) {
+		this.cache = cache;
+	}
+
+}
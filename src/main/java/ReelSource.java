@@ -0,0 +1,589 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Stream of reel sets, where each reel set holds the reels of a single slot
+ * machine. Reel sets are read one by one, so large corpora are not loaded
+ * in the memory at once.
+ *
+ * The text format has a reel on each line with comma separated symbols and
+ * the reel sets are separated by empty lines. Lines starting with # are
+ * comments.
+ *
+ * The binary format starts with the REEL magic number, a version byte and
+ * the number of bytes for each symbol (1, 2 or 4). Each reel set follows as
+ * the number of reels and for each reel its length and its symbols. All
+ * numbers are big-endian. Binary files are read through memory-mapped
+ * windows of the file.
+ *
+ * @author Todor Balabanov
+ */
+abstract class ReelSource implements Iterator<int[][]>, Closeable {
+
+	/**
+	 * Magic number of the binary format (REEL in ASCII).
+	 */
+	static final int MAGIC = 0x5245454C;
+
+	/**
+	 * Version of the binary format.
+	 */
+	static final byte VERSION = 1;
+
+	/**
+	 * Reel sets given in the memory.
+	 */
+	private static class Fixtures extends ReelSource {
+		/**
+		 * Reel sets.
+		 */
+		private final int[][][] sets;
+
+		/**
+		 * Index of the next reel set.
+		 */
+		private int index = 0;
+
+		/**
+		 * Constructor with all parameters.
+		 *
+		 * @param sets
+		 *            Reel sets.
+		 */
+		Fixtures(int[][][] sets) {
+			this.sets = sets;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean hasNext() {
+			return index < sets.length;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int[][] next() {
+			if (hasNext() == false) {
+				throw new NoSuchElementException();
+			}
+
+			return sets[index++];
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void close() {
+		}
+	}
+
+	/**
+	 * Reel sets in the text format.
+	 */
+	private static class Text extends ReelSource {
+		/**
+		 * Lines of the file.
+		 */
+		private final BufferedReader reader;
+
+		/**
+		 * The next reel set or null at the end of the file.
+		 */
+		private int[][] next;
+
+		/**
+		 * Constructor with all parameters.
+		 *
+		 * @param file
+		 *            Path of the file.
+		 *
+		 * @throws IOException
+		 *             If the file can not be read.
+		 */
+		Text(String file) throws IOException {
+			reader = new BufferedReader(new FileReader(file));
+			next = read();
+		}
+
+		/**
+		 * Reads the reels until an empty line or the end of the file.
+		 *
+		 * @return Reel set or null at the end of the file.
+		 *
+		 * @throws IOException
+		 *             If the file can not be read.
+		 */
+		private int[][] read() throws IOException {
+			List<int[]> reels = new ArrayList<int[]>();
+
+			for (String line; (line = reader.readLine()) != null;) {
+				line = line.trim();
+
+				if (line.startsWith("#") == true) {
+					continue;
+				}
+
+				/* Empty lines separate the reel sets. */
+				if (line.isEmpty() == true) {
+					if (reels.isEmpty() == false) {
+						break;
+					}
+					continue;
+				}
+
+				String[] values = line.split("\\s*,\\s*");
+				int[] reel = new int[values.length];
+				for (int i = 0; i < values.length; i++) {
+					reel[i] = Integer.parseInt(values[i]);
+				}
+				reels.add(reel);
+			}
+
+			return reels.isEmpty() ? null : reels.toArray(new int[0][]);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int[][] next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+
+			int[][] result = next;
+			try {
+				next = read();
+			} catch (IOException exception) {
+				throw new RuntimeException(exception);
+			}
+
+			return result;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void close() throws IOException {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Reel sets in the binary format read through memory-mapped windows.
+	 */
+	private static class Binary extends ReelSource {
+		/**
+		 * Maximum size of a memory-mapped window.
+		 */
+		private static final long WINDOW = 1L << 28;
+
+		/**
+		 * Path of the file for the error messages.
+		 */
+		private final String file;
+
+		/**
+		 * Channel of the file.
+		 */
+		private final FileChannel channel;
+
+		/**
+		 * Number of bytes for each symbol.
+		 */
+		private final int width;
+
+		/**
+		 * File position of the current window.
+		 */
+		private long offset = 0;
+
+		/**
+		 * Current window of the file.
+		 */
+		private MappedByteBuffer buffer;
+
+		/**
+		 * Constructor with all parameters.
+		 *
+		 * @param file
+		 *            Path of the file.
+		 *
+		 * @throws IOException
+		 *             If the file can not be read.
+		 */
+		Binary(String file) throws IOException {
+			this.file = file;
+			channel = FileChannel.open(Paths.get(file),
+					StandardOpenOption.READ);
+			map(0);
+
+			if (available(6) == false || buffer.getInt() != MAGIC) {
+				throw new RuntimeException("It is not a binary reels file!");
+			}
+			if (buffer.get() != VERSION) {
+				throw new RuntimeException(
+						"Unsupported version of the binary reels file!");
+			}
+
+			width = buffer.get();
+			if (width != 1 && width != 2 && width != 4) {
+				throw new RuntimeException(
+						"Symbols should be stored in 1, 2 or 4 bytes!");
+			}
+		}
+
+		/**
+		 * Maps a window of the file.
+		 *
+		 * @param position
+		 *            File position of the window start.
+		 *
+		 * @throws IOException
+		 *             If the file can not be mapped.
+		 */
+		private void map(long position) throws IOException {
+			offset = position;
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+					Math.min(WINDOW, channel.size() - position));
+		}
+
+		/**
+		 * Checks for bytes in the file and moves the window, if they are not
+		 * mapped.
+		 *
+		 * @param bytes
+		 *            Number of the needed bytes.
+		 *
+		 * @return True if the bytes are available in the window.
+		 *
+		 * @throws IOException
+		 *             If the file can not be mapped.
+		 */
+		private boolean available(long bytes) throws IOException {
+			if (bytes > WINDOW) {
+				throw new RuntimeException("Reel is too long!");
+			}
+
+			if (buffer.remaining() < bytes) {
+				map(offset + buffer.position());
+			}
+
+			return buffer.remaining() >= bytes;
+		}
+
+		/**
+		 * Reads a count and checks that the rest of the file can hold the
+		 * counted items.
+		 *
+		 * @param bytes
+		 *            The least number of bytes of a single item.
+		 *
+		 * @return Number of the items.
+		 *
+		 * @throws IOException
+		 *             If the count is out of the file.
+		 */
+		private int count(int bytes) throws IOException {
+			if (available(Integer.BYTES) == false) {
+				throw corrupt("truncated");
+			}
+
+			long position = offset + buffer.position();
+			int count = buffer.getInt();
+			if (count < 0 || (long) count * bytes > channel.size()
+					- position - Integer.BYTES) {
+				buffer.position(buffer.position() - Integer.BYTES);
+				throw corrupt("count " + count + " is out of the file");
+			}
+
+			return count;
+		}
+
+		/**
+		 * Describes a format error at the current position.
+		 *
+		 * @param problem
+		 *            Description of the problem.
+		 *
+		 * @return Exception with the file and the offset.
+		 */
+		private IOException corrupt(String problem) {
+			return new IOException("Binary reels file " + file + " is "
+					+ "corrupt at offset " + (offset + buffer.position())
+					+ ": " + problem + "!");
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public boolean hasNext() {
+			try {
+				return available(Integer.BYTES);
+			} catch (IOException exception) {
+				throw new RuntimeException(exception);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public int[][] next() {
+			if (hasNext() == false) {
+				throw new NoSuchElementException();
+			}
+
+			try {
+				/* Each reel has at least its length. */
+				int[][] reels = new int[count(Integer.BYTES)][];
+				for (int r = 0; r < reels.length; r++) {
+					int[] reel = new int[count(width)];
+					if (available((long) reel.length * width) == false) {
+						throw corrupt("truncated");
+					}
+
+					for (int i = 0; i < reel.length; i++) {
+						switch (width) {
+						case 1:
+							reel[i] = buffer.get() & 0xFF;
+							break;
+						case 2:
+							reel[i] = buffer.getShort() & 0xFFFF;
+							break;
+						default:
+							reel[i] = buffer.getInt();
+							break;
+						}
+					}
+
+					reels[r] = reel;
+				}
+
+				return reels;
+			} catch (IOException exception) {
+				throw new RuntimeException(exception);
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Creates a source of reel sets given in the memory.
+	 *
+	 * @param sets
+	 *            Reel sets.
+	 *
+	 * @return Source of the reel sets.
+	 */
+	public static ReelSource fixtures(int[][][] sets) {
+		return new Fixtures(sets);
+	}
+
+	/**
+	 * Opens a file in the text or in the binary format. Binary files are
+	 * recognized by their magic number.
+	 *
+	 * @param file
+	 *            Path of the file.
+	 *
+	 * @return Source of the reel sets.
+	 *
+	 * @throws IOException
+	 *             If the file can not be read.
+	 */
+	public static ReelSource open(String file) throws IOException {
+		int magic = 0;
+		try (DataInputStream in = new DataInputStream(
+				new FileInputStream(file))) {
+			magic = in.readInt();
+		} catch (EOFException exception) {
+			/* Short files are not binary. */
+		}
+
+		if (magic == MAGIC) {
+			return new Binary(file);
+		}
+
+		return new Text(file);
+	}
+
+	/**
+	 * Converts a reels file in the text or in the binary format. The format
+	 * of the new file is binary if its name ends with .bin and text
+	 * otherwise.
+	 *
+	 * @param from
+	 *            Path of the existing file.
+	 *
+	 * @param to
+	 *            Path of the new file.
+	 *
+	 * @throws IOException
+	 *             If a file can not be read or written.
+	 */
+	public static void convert(String from, String to) throws IOException {
+		if (to.toLowerCase(Locale.ROOT).endsWith(".bin") == false) {
+			try (ReelSource sets = open(from)) {
+				text(to, sets);
+			}
+			return;
+		}
+
+		/* The width of the symbols is found in a first reading. */
+		int width = 1;
+		try (ReelSource sets = open(from)) {
+			width = width(sets);
+		}
+		try (ReelSource sets = open(from)) {
+			binary(to, sets, width);
+		}
+	}
+
+	/**
+	 * Finds the smallest width which fits all symbols.
+	 *
+	 * @param sets
+	 *            Reel sets.
+	 *
+	 * @return Number of bytes for each symbol (1, 2 or 4).
+	 */
+	private static int width(Iterator<int[][]> sets) {
+		int width = 1;
+		while (sets.hasNext() == true) {
+			for (int[] reel : sets.next()) {
+				for (int value : reel) {
+					if (value < 0 || value > 0xFFFF) {
+						return 4;
+					} else if (value > 0xFF) {
+						width = 2;
+					}
+				}
+			}
+		}
+
+		return width;
+	}
+
+	/**
+	 * Writes reel sets in the binary format.
+	 *
+	 * @param file
+	 *            Path of the file.
+	 *
+	 * @param sets
+	 *            Reel sets.
+	 *
+	 * @param width
+	 *            Number of bytes for each symbol, which fits all of them.
+	 *
+	 * @throws IOException
+	 *             If the file can not be written.
+	 */
+	private static void binary(String file, Iterator<int[][]> sets,
+			int width) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			out.writeByte(width);
+
+			while (sets.hasNext() == true) {
+				int[][] reels = sets.next();
+				out.writeInt(reels.length);
+				for (int[] reel : reels) {
+					out.writeInt(reel.length);
+					for (int value : reel) {
+						if (width == 1) {
+							out.writeByte(value);
+						} else if (width == 2) {
+							out.writeShort(value);
+						} else {
+							out.writeInt(value);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes reel sets in the text format.
+	 *
+	 * @param file
+	 *            Path of the file.
+	 *
+	 * @param sets
+	 *            Reel sets.
+	 *
+	 * @throws IOException
+	 *             If the file can not be written.
+	 */
+	private static void text(String file, Iterator<int[][]> sets)
+			throws IOException {
+		try (BufferedWriter out = new BufferedWriter(new FileWriter(file))) {
+			while (sets.hasNext() == true) {
+				for (int[] reel : sets.next()) {
+					for (int i = 0; i < reel.length; i++) {
+						if (i > 0) {
+							out.write(',');
+						}
+						out.write(Integer.toString(reel[i]));
+					}
+					out.newLine();
+				}
+				out.newLine();
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+
+}
@@ -0,0 +1,131 @@
+/**
+ * Canonical form of circular sequences. All rotations of a reel describe the
+ * same reel, so the lexicographically minimal rotation is used as their
+ * common representation.
+ *
+ * @author Todor Balabanov
+ */
+final class Rotations {
+
+	/**
+	 * Utility class without instances.
+	 */
+	private Rotations() {
+	}
+
+	/**
+	 * Finds the start of the lexicographically minimal rotation with the
+	 * two pointers minimum expression algorithm. It works in linear time and
+	 * without additional memory.
+	 *
+	 * @param sequence
+	 *            Circular sequence of symbols.
+	 *
+	 * @param length
+	 *            Number of used symbols in the sequence.
+	 *
+	 * @return Index of the first symbol of the minimal rotation.
+	 */
+	public static int canonical(int[] sequence, int length) {
+		int i = 0, j = 1, k = 0;
+		while (i < length && j < length && k < length) {
+			int a = sequence[(i + k) % length];
+			int b = sequence[(j + k) % length];
+			if (a == b) {
+				k++;
+				continue;
+			}
+
+			if (a > b) {
+				i += k + 1;
+			} else {
+				j += k + 1;
+			}
+			if (i == j) {
+				j++;
+			}
+			k = 0;
+		}
+
+		return Math.min(i, j) % Math.max(1, length);
+	}
+
+	/**
+	 * Calculates a 64-bit hash of the canonical rotation. All rotations of a
+	 * sequence have the same fingerprint.
+	 *
+	 * @param sequence
+	 *            Circular sequence of symbols.
+	 *
+	 * @param length
+	 *            Number of used symbols in the sequence.
+	 *
+	 * @return Fingerprint of the sequence.
+	 */
+	public static long fingerprint(int[] sequence, int length) {
+		int start = canonical(sequence, length);
+
+		long hash = 0x9E3779B97F4A7C15L * (length + 1);
+		for (int i = 0, j = start; i < length; i++) {
+			hash = (hash ^ sequence[j]) * 0xbf58476d1ce4e5b9L;
+			hash ^= hash >>> 29;
+			if (++j == length) {
+				j = 0;
+			}
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Compares a sequence with a canonical rotation.
+	 *
+	 * @param canonical
+	 *            Symbols of a canonical rotation.
+	 *
+	 * @param sequence
+	 *            Circular sequence of symbols.
+	 *
+	 * @param length
+	 *            Number of used symbols in the sequence.
+	 *
+	 * @return True if the sequence is a rotation of the canonical one.
+	 */
+	public static boolean equivalent(int[] canonical, int[] sequence,
+			int length) {
+		if (canonical.length != length) {
+			return false;
+		}
+
+		for (int i = 0, j = canonical(sequence, length); i < length; i++) {
+			if (canonical[i] != sequence[j]) {
+				return false;
+			}
+			if (++j == length) {
+				j = 0;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Copies the canonical rotation of a sequence.
+	 *
+	 * @param sequence
+	 *            Circular sequence of symbols.
+	 *
+	 * @param length
+	 *            Number of used symbols in the sequence.
+	 *
+	 * @return Symbols of the minimal rotation.
+	 */
+	public static int[] rotate(int[] sequence, int length) {
+		int start = canonical(sequence, length);
+		int[] result = new int[length];
+		System.arraycopy(sequence, start, result, 0, length - start);
+		System.arraycopy(sequence, 0, result, length - start, start);
+		return result;
+	}
+
+}
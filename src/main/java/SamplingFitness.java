@@ -0,0 +1,58 @@
+/**
+ * Fitness evaluation by random sampling of chunks from the candidate and
+ * distance between the sorted chunks of the candidate and the original.
+ *
+ * @author Todor Balabanov
+ */
+class SamplingFitness implements Fitness {
+
+	/**
+	 * Distance between two chunks.
+	 */
+	private final ChunkDistance metric;
+
+	/**
+	 * Constructor with the Euclidean distance of the chunks.
+	 */
+	public SamplingFitness() {
+		this(ChunkDistance.EUCLIDEAN);
+	}
+
+	/**
+	 * Constructor with all parameters.
+	 *
+	 * @param metric
+	 *            Distance between two chunks.
+	 */
+	public SamplingFitness(ChunkDistance metric) {
+		super();
+		this.metric = metric;
+	}
+
+	/**
+	 * Chunks distance getter.
+	 *
+	 * @return Distance between two chunks.
+	 */
+	public ChunkDistance metric() {
+		return metric;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double distance(Chromosome candidate, ReelContext context,
+			RandomSource random) {
+		Metrics metrics = context.metrics();
+		long start = metrics.time();
+		candidate.sampling(context.original(), random);
+		start = metrics.phase(Phase.SAMPLING, start);
+		double distance = candidate.distance(context.original(), metric);
+		metrics.phase(Phase.DISTANCE, start);
+		metrics.evaluation();
+
+		return distance;
+	}
+
+}
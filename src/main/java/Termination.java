@@ -0,0 +1,280 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Criterion for an early end of the evolution. Criteria are checked after
+ * each generation with the progress of the run and the counters of the reel,
+ * so they keep no state and a single criterion can be shared by all reels.
+ * When a criterion is reached the best-found solution is returned.
+ *
+ * @author Todor Balabanov
+ */
+interface Termination {
+
+	/**
+	 * Progress of a single evolution run.
+	 */
+	class Progress {
+		/**
+		 * Number of the finished generations.
+		 */
+		private long generation = 0;
+
+		/**
+		 * The best fitness found.
+		 */
+		private double best = Double.NEGATIVE_INFINITY;
+
+		/**
+		 * Generation of the last improvement of the best fitness.
+		 */
+		private long improvement = 0;
+
+		/**
+		 * Records a finished generation.
+		 *
+		 * @param fitness
+		 *            The best fitness in the generation.
+		 */
+		public void generation(double fitness) {
+			generation++;
+			if (fitness > best) {
+				best = fitness;
+				improvement = generation;
+			}
+		}
+
+		/**
+		 * Number of the finished generations getter.
+		 *
+		 * @return Generations.
+		 */
+		public long generation() {
+			return generation;
+		}
+
+		/**
+		 * The best fitness getter.
+		 *
+		 * @return The best fitness found.
+		 */
+		public double best() {
+			return best;
+		}
+
+		/**
+		 * Generations without improvement getter.
+		 *
+		 * @return Generations since the last improvement.
+		 */
+		public long stagnation() {
+			return generation - improvement;
+		}
+
+		/**
+		 * Writes the progress for a checkpoint.
+		 *
+		 * @param out
+		 *            Binary output.
+		 *
+		 * @throws IOException
+		 *             If the progress can not be written.
+		 */
+		public void write(DataOutput out) throws IOException {
+			out.writeLong(generation);
+			out.writeDouble(best);
+			out.writeLong(improvement);
+		}
+
+		/**
+		 * Reads a progress written before.
+		 *
+		 * @param in
+		 *            Binary input.
+		 *
+		 * @return Progress of the run.
+		 *
+		 * @throws IOException
+		 *             If the progress can not be read.
+		 */
+		public static Progress read(DataInput in) throws IOException {
+			Progress result = new Progress();
+			result.generation = in.readLong();
+			result.best = in.readDouble();
+			result.improvement = in.readLong();
+			return result;
+		}
+	}
+
+	/**
+	 * The evolution runs until its own end.
+	 */
+	Termination NEVER = new Termination() {
+		@Override
+		public boolean reached(Progress progress, Metrics metrics) {
+			return false;
+		}
+	};
+
+	/**
+	 * Ends the evolution when the best fitness reaches a target.
+	 *
+	 * @param fitness
+	 *            Target fitness, zero is the original itself.
+	 *
+	 * @return Termination criterion.
+	 */
+	static Termination target(final double fitness) {
+		return new Termination() {
+			@Override
+			public boolean reached(Progress progress, Metrics metrics) {
+				return progress.best() >= fitness;
+			}
+		};
+	}
+
+	/**
+	 * Ends the evolution when the best fitness is not improved for a number
+	 * of generations.
+	 *
+	 * @param generations
+	 *            Generations without improvement.
+	 *
+	 * @return Termination criterion.
+	 */
+	static Termination stagnation(final long generations) {
+		if (generations <= 0) {
+			throw new RuntimeException(
+					"Stagnation generations should be positive!");
+		}
+
+		return new Termination() {
+			@Override
+			public boolean reached(Progress progress, Metrics metrics) {
+				return progress.stagnation() >= generations;
+			}
+		};
+	}
+
+	/**
+	 * Ends the evolution when the fitness evaluations of the reel reach a
+	 * budget.
+	 *
+	 * @param maximum
+	 *            Maximum number of evaluations.
+	 *
+	 * @return Termination criterion.
+	 */
+	static Termination evaluations(final long maximum) {
+		return new Termination() {
+			@Override
+			public boolean reached(Progress progress, Metrics metrics) {
+				return metrics.evaluations() >= maximum;
+			}
+		};
+	}
+
+	/**
+	 * Ends the evolution when the wall-clock time of the reel reaches a
+	 * budget.
+	 *
+	 * @param seconds
+	 *            Maximum time in seconds.
+	 *
+	 * @return Termination criterion.
+	 */
+	static Termination deadline(final double seconds) {
+		return new Termination() {
+			@Override
+			public boolean reached(Progress progress, Metrics metrics) {
+				return metrics.seconds() >= seconds;
+			}
+		};
+	}
+
+	/**
+	 * Ends the evolution when any of the criteria is reached.
+	 *
+	 * @param criteria
+	 *            Termination criteria.
+	 *
+	 * @return Termination criterion.
+	 */
+	static Termination any(final Termination... criteria) {
+		if (criteria.length == 1) {
+			return criteria[0];
+		}
+
+		return new Termination() {
+			@Override
+			public boolean reached(Progress progress, Metrics metrics) {
+				for (Termination criterion : criteria) {
+					if (criterion.reached(progress, metrics) == true) {
+						return true;
+					}
+				}
+
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Creates criteria by a comma separated list of names and values. The
+	 * names are target (fitness), stagnation (generations), evaluations
+	 * (maximum) and seconds (wall-clock budget), for example
+	 * target:0,stagnation:500,seconds:3600. The evolution ends when any of
+	 * them is reached.
+	 *
+	 * @param text
+	 *            List of criteria, empty for no early end.
+	 *
+	 * @return Termination criterion.
+	 */
+	static Termination of(String text) {
+		String[] items = text.trim().toLowerCase().split("\\s*,\\s*");
+		if (items.length == 1 && items[0].isEmpty() == true) {
+			return NEVER;
+		}
+
+		Termination[] criteria = new Termination[items.length];
+		for (int i = 0; i < items.length; i++) {
+			String[] parts = items[i].split(":");
+			if (parts.length != 2) {
+				throw new RuntimeException(
+						"Unknown termination criterion " + items[i] + "!");
+			}
+
+			double value = Double.parseDouble(parts[1]);
+			if (parts[0].equals("target") == true) {
+				criteria[i] = target(value);
+			} else if (parts[0].equals("stagnation") == true) {
+				criteria[i] = stagnation((long) value);
+			} else if (parts[0].equals("evaluations") == true) {
+				criteria[i] = evaluations((long) value);
+			} else if (parts[0].equals("seconds") == true) {
+				criteria[i] = deadline(value);
+			} else {
+				throw new RuntimeException(
+						"Unknown termination criterion " + items[i] + "!");
+			}
+		}
+
+		return any(criteria);
+	}
+
+	/**
+	 * Checks the criterion after a generation.
+	 *
+	 * @param progress
+	 *            Progress of the evolution run.
+	 *
+	 * @param metrics
+	 *            Counters of the reel.
+	 *
+	 * @return True if the evolution should end.
+	 */
+	boolean reached(Progress progress, Metrics metrics);
+
+}
@@ -0,0 +1,46 @@
+/**
+ * Connections between the islands, along which the migrants travel.
+ *
+ * @author Todor Balabanov
+ */
+enum Topology {
+	/**
+	 * Each island sends migrants to the next island and the last island
+	 * sends them to the first one.
+	 */
+	RING {
+		@Override
+		public int[] neighbours(int island, int islands) {
+			return new int[]{(island + 1) % islands};
+		}
+	},
+
+	/**
+	 * Each island sends migrants to all other islands.
+	 */
+	FULL {
+		@Override
+		public int[] neighbours(int island, int islands) {
+			int[] result = new int[islands - 1];
+			for (int i = 0, j = 0; i < islands; i++) {
+				if (i != island) {
+					result[j++] = i;
+				}
+			}
+			return result;
+		}
+	};
+
+	/**
+	 * Islands which receive the migrants of an island.
+	 *
+	 * @param island
+	 *            Index of the sending island.
+	 *
+	 * @param islands
+	 *            Number of the islands.
+	 *
+	 * @return Indices of the receiving islands.
+	 */
+	public abstract int[] neighbours(int island, int islands);
+}
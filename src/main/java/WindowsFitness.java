@@ -0,0 +1,276 @@
+import java.util.Arrays;
+
+/**
+ * Deterministic fitness evaluation. All circular windows of the candidate
+ * are counted and the frequencies are compared with the original chunks
+ * histogram. The evaluation is linear in the sequence length and it does not
+ * need any sorting.
+ *
+ * @author Todor Balabanov
+ */
+class WindowsFitness implements Fitness {
+
+	/**
+	 * Buffer of the window starts of the edits for each thread.
+	 */
+	private static final ThreadLocal<int[][]> STARTS = new ThreadLocal<int[][]>() {
+		@Override
+		protected int[][] initialValue() {
+			return new int[][]{{}};
+		}
+	};
+
+	/**
+	 * Divergence between the chunks distributions.
+	 */
+	private final Divergence divergence;
+
+	/**
+	 * Constructor with all parameters.
+	 *
+	 * @param divergence
+	 *            Divergence between the chunks distributions.
+	 */
+	public WindowsFitness(Divergence divergence) {
+		super();
+		this.divergence = divergence;
+	}
+
+	/**
+	 * Divergence getter.
+	 *
+	 * @return Divergence between the chunks distributions.
+	 */
+	public Divergence divergence() {
+		return divergence;
+	}
+
+	/**
+	 * Counts all circular windows of a sequence.
+	 *
+	 * @param codec
+	 *            Codec of the chunks.
+	 *
+	 * @param sequence
+	 *            Circular sequence of symbols.
+	 *
+	 * @param length
+	 *            Number of used symbols in the sequence.
+	 *
+	 * @param counts
+	 *            Histogram to be filled with the windows counts.
+	 */
+	static void count(ChunkCodec codec, int[] sequence, int length,
+			Histogram counts) {
+		counts.clear();
+		if (length == 0) {
+			return;
+		}
+
+		/* Each next window is obtained by a single symbol shift. */
+		long code = codec.window(sequence, length, 0);
+		counts.add(code);
+		for (int p = 1, q = codec.size() % length; p < length; p++) {
+			code = codec.next(code, sequence[q]);
+			counts.add(code);
+			if (++q == length) {
+				q = 0;
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double distance(Chromosome candidate, ReelContext context,
+			RandomSource random) {
+		return distance(candidate, context);
+	}
+
+	/**
+	 * Calculates the distance between a candidate and the original. The
+	 * evaluation does not need random numbers.
+	 *
+	 * @param candidate
+	 *            Chromosome to be evaluated.
+	 *
+	 * @param context
+	 *            Reconstruction context with the original histogram.
+	 *
+	 * @return Distance calculated, where zero is the best possible value.
+	 */
+	public double distance(Chromosome candidate, ReelContext context) {
+		Metrics metrics = context.metrics();
+		long start = metrics.time();
+		Histogram target = context.histogram();
+		Histogram counts = candidate.windows();
+		count(context.codec(), candidate.genes(), candidate.length(), counts);
+		start = metrics.phase(Phase.SAMPLING, start);
+
+		double sum = 0;
+		double expectedTotal = target.total();
+		double observedTotal = counts.total();
+
+		/* Chunks presented in the original. */
+		for (int i = 0; i < target.distinct(); i++) {
+			sum += divergence.term(target.count(i) / expectedTotal,
+					counts.get(target.code(i)) / observedTotal);
+		}
+
+		/* Chunks presented only in the candidate. */
+		for (int i = 0; i < counts.distinct(); i++) {
+			if (target.indexOf(counts.code(i)) < 0) {
+				sum += divergence.term(0, counts.count(i) / observedTotal);
+			}
+		}
+
+		candidate.divergence(sum);
+		candidate.version(context.version());
+		metrics.phase(Phase.DISTANCE, start);
+		metrics.evaluation();
+
+		return divergence.total(sum);
+	}
+
+	/**
+	 * Changes the count of a single window and updates the divergence sum.
+	 *
+	 * @param target
+	 *            Original chunks histogram.
+	 *
+	 * @param counts
+	 *            Windows counts of the candidate.
+	 *
+	 * @param code
+	 *            Packed window code.
+	 *
+	 * @param amount
+	 *            Change of the window count.
+	 *
+	 * @param observedTotal
+	 *            Total number of windows in the candidate.
+	 *
+	 * @param sum
+	 *            Divergence sum before the change.
+	 *
+	 * @return Divergence sum after the change.
+	 */
+	private double update(Histogram target, Histogram counts, long code,
+			int amount, double observedTotal, double sum) {
+		double expected = target.get(code) / (double) target.total();
+		int count = counts.get(code);
+
+		sum -= divergence.term(expected, count / observedTotal);
+		counts.add(code, amount);
+		sum += divergence.term(expected, (count + amount) / observedTotal);
+
+		return sum;
+	}
+
+	/**
+	 * Applies point edits to a candidate sequence and calculates the new
+	 * distance from the windows which cover the edited positions only.
+	 *
+	 * @param candidate
+	 *            Chromosome to be edited.
+	 *
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 *
+	 * @param positions
+	 *            Positions in the sequence to be changed.
+	 *
+	 * @param values
+	 *            New values for the positions.
+	 *
+	 * @param count
+	 *            Number of the used positions and values.
+	 *
+	 * @return Distance calculated after the edits.
+	 */
+	public double edit(Chromosome candidate, ReelContext context,
+			int[] positions, int[] values, int count) {
+		if (count > positions.length || count > values.length) {
+			throw new RuntimeException(
+					"Each edited position should have a value!");
+		}
+
+		ChunkCodec codec = context.codec();
+		int[] sequence = candidate.genes();
+		int length = candidate.length();
+		for (int i = 0; i < count; i++) {
+			if (positions[i] < 0 || positions[i] >= length) {
+				throw new RuntimeException(
+						"Edited position is outside of the sequence!");
+			}
+
+			if (codec.accepts(values[i]) == false) {
+				throw new RuntimeException(
+						"Edited value is outside of the chunks symbols!");
+			}
+		}
+
+		/*
+		 * Without valid windows counts or after a change of the target a
+		 * full evaluation is needed.
+		 */
+		if (Double.isNaN(candidate.divergence()) == true
+				|| candidate.version() != context.version()) {
+			for (int i = 0; i < count; i++) {
+				sequence[positions[i]] = values[i];
+			}
+			return distance(candidate, context);
+		}
+
+		Metrics metrics = context.metrics();
+		long start = metrics.time();
+
+		/* Starts of the windows covering the edited positions. */
+		int size = Math.min(codec.size(), length);
+		int total = count * size;
+		int[][] buffer = STARTS.get();
+		if (buffer[0].length < total) {
+			buffer[0] = new int[total];
+		}
+		int[] starts = buffer[0];
+		for (int i = 0, k = 0; i < count; i++) {
+			for (int d = 0; d < size; d++) {
+				starts[k++] = (positions[i] - d + length) % length;
+			}
+		}
+		Arrays.sort(starts, 0, total);
+
+		Histogram target = context.histogram();
+		Histogram counts = candidate.windows();
+		double sum = candidate.divergence();
+
+		/* Remove the affected windows. */
+		for (int i = 0; i < total; i++) {
+			if (i == 0 || starts[i] != starts[i - 1]) {
+				sum = update(target, counts,
+						codec.window(sequence, length, starts[i]), -1, length, sum);
+			}
+		}
+
+		for (int i = 0; i < count; i++) {
+			sequence[positions[i]] = values[i];
+		}
+
+		/* Add the affected windows with the new values. */
+		for (int i = 0; i < total; i++) {
+			if (i == 0 || starts[i] != starts[i - 1]) {
+				sum = update(target, counts,
+						codec.window(sequence, length, starts[i]), +1, length, sum);
+			}
+		}
+
+		candidate.divergence(sum);
+		candidate.version(context.version());
+		metrics.phase(Phase.DISTANCE, start);
+		metrics.evaluation();
+
+		return divergence.total(sum);
+	}
+
+}
@@ -0,0 +1,170 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Checkpoint round trip, where the loaded state is compared with the state
+ * which was saved.
+ *
+ * @author Todor Balabanov
+ */
+public class CheckpointTest {
+
+	/**
+	 * Directory of the checkpoint files.
+	 */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Random reel of a few symbols.
+	 *
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 *
+	 * @return Reel as numbers.
+	 */
+	private static int[] reel(RandomSource random) {
+		int[] result = new int[60];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = random.nextInt(6);
+		}
+		return result;
+	}
+
+	/**
+	 * Saves a state, loads it back and compares all of its parts.
+	 *
+	 * @throws IOException
+	 *             If the checkpoint can not be read.
+	 *
+	 * @throws InterruptedException
+	 *             If the waiting for the writing is interrupted.
+	 */
+	@Test
+	public void loadedStateIsTheSavedState()
+			throws IOException, InterruptedException {
+		RandomSource random = new RandomSource(14);
+		ReelContext context = ReelContext.exact(reel(random), 3, 100);
+		FitnessCache cache = new FitnessCache(
+				new WindowsFitness(Divergence.L1), 100);
+		context.cache(cache);
+
+		Population population = new Population(30);
+		for (int i = 0; i < population.capacity(); i++) {
+			Chromosome individual = Chromosome.initializeRandom(context,
+					random);
+			individual.fitness(-cache.distance(individual, context, random));
+			population.add(individual);
+		}
+		int replaced = population.bestIndex();
+		population.replace(replaced,
+				Chromosome.initializeRandom(context, random));
+
+		Termination.Progress progress = new Termination.Progress();
+		for (int g = 0; g < 17; g++) {
+			progress.generation(random.nextDouble());
+		}
+
+		Checkpoint saved = new Checkpoint(
+				new File(folder.getRoot(), "reel"));
+		assertFalse(saved.exists());
+		saved.save(12345, progress, random, context, population);
+		saved.await();
+
+		Checkpoint loaded = new Checkpoint(
+				new File(folder.getRoot(), "reel"));
+		assertTrue(loaded.exists());
+		FitnessCache restored = new FitnessCache(
+				new WindowsFitness(Divergence.L1), 100);
+		loaded.load(restored);
+
+		assertEquals(12345, loaded.steps());
+		assertEquals(progress.generation(), loaded.progress().generation());
+		assertEquals(progress.best(), loaded.progress().best(), 0);
+		assertEquals(progress.stagnation(), loaded.progress().stagnation());
+
+		/* Pseudo-random numbers continue from the same state. */
+		for (int i = 0; i < 100; i++) {
+			assertEquals(random.nextLong(), loaded.random().nextLong());
+		}
+
+		ReelContext other = loaded.context();
+		assertArrayEquals(context.reel(), other.reel());
+		assertEquals(context.version(), other.version());
+		assertEquals(context.minLength(), other.minLength());
+		assertEquals(context.maxLength(), other.maxLength());
+		assertEquals(context.windows(), other.windows());
+		Histogram histogram = context.histogram();
+		assertEquals(histogram.distinct(), other.histogram().distinct());
+		for (int i = 0; i < histogram.distinct(); i++) {
+			assertEquals(histogram.code(i), other.histogram().code(i));
+			assertEquals(histogram.count(i), other.histogram().count(i));
+		}
+
+		Population individuals = loaded.population();
+		assertEquals(population.capacity(), individuals.capacity());
+		assertEquals(population.size(), individuals.size());
+		assertEquals(population.bestIndex(), individuals.bestIndex());
+		for (int i = 0; i < population.size(); i++) {
+			Chromosome expected = population.get(i);
+			Chromosome actual = individuals.get(i);
+			assertArrayEquals(expected.sequence(), actual.sequence());
+			assertEquals(expected.fitness(), actual.fitness(), 0);
+			assertEquals(expected.version(), actual.version());
+		}
+
+		/* Cached values are found without new misses. */
+		assertEquals(restored, other.cache());
+		assertEquals(cache.size(), restored.size());
+		for (int i = 0; i < population.size(); i++) {
+			if (i != replaced) {
+				assertEquals(population.get(i).fitness(), -restored
+						.distance(individuals.get(i), other, random), 0);
+			}
+		}
+		String misses = cache.toString();
+		misses = misses.substring(misses.indexOf("misses="));
+		assertTrue(restored.toString().endsWith(misses));
+	}
+
+	/**
+	 * Checkpoint of another version is not loaded.
+	 *
+	 * @throws IOException
+	 *             If the checkpoint can not be read.
+	 *
+	 * @throws InterruptedException
+	 *             If the waiting for the writing is interrupted.
+	 */
+	@Test(expected = RuntimeException.class)
+	public void otherVersionIsRejected()
+			throws IOException, InterruptedException {
+		RandomSource random = new RandomSource(15);
+		ReelContext context = ReelContext.exact(reel(random), 3, 100);
+		Population population = new Population(2);
+		population.add(Chromosome.initializeRandom(context, random));
+
+		File file = new File(folder.getRoot(), "reel");
+		Checkpoint checkpoint = new Checkpoint(file);
+		checkpoint.save(1, new Termination.Progress(), random, context,
+				population);
+		checkpoint.await();
+
+		try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+			out.seek(Integer.BYTES);
+			out.writeByte(Checkpoint.VERSION - 1);
+		}
+		new Checkpoint(file).load(null);
+	}
+
+}
@@ -0,0 +1,203 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.junit.Test;
+
+/**
+ * Packing of the chunks and sorting of the flat chunks, checked against
+ * sorting of the chunks as separate arrays.
+ *
+ * @author Todor Balabanov
+ */
+public class ChunkCodecTest {
+
+	/**
+	 * Lexicographic order of the chunks.
+	 */
+	private static final Comparator<int[]> LEXICOGRAPHIC = new Comparator<int[]>() {
+		@Override
+		public int compare(int[] first, int[] second) {
+			for (int i = 0; i < first.length; i++) {
+				if (first[i] != second[i]) {
+					return Integer.compare(first[i], second[i]);
+				}
+			}
+			return 0;
+		}
+	};
+
+	/**
+	 * Fills the chunks with random symbols from a range.
+	 *
+	 * @param chunks
+	 *            Chunks to be filled.
+	 *
+	 * @param minimum
+	 *            The smallest symbol.
+	 *
+	 * @param range
+	 *            Number of different symbols.
+	 *
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 */
+	private static void fill(Chunks chunks, int minimum, long range,
+			RandomSource random) {
+		for (int c = 0; c < chunks.count(); c++) {
+			for (int i = 0; i < chunks.size(); i++) {
+				long value = minimum
+						+ (random.nextLong() & Long.MAX_VALUE) % range;
+				chunks.set(c, i, (int) value);
+			}
+		}
+	}
+
+	/**
+	 * Sorts the chunks as separate arrays.
+	 *
+	 * @param chunks
+	 *            Chunks to be sorted.
+	 *
+	 * @return Sorted copies of the chunks.
+	 */
+	private static int[][] reference(Chunks chunks) {
+		int[][] result = new int[chunks.count()][chunks.size()];
+		for (int c = 0; c < chunks.count(); c++) {
+			for (int i = 0; i < chunks.size(); i++) {
+				result[c][i] = chunks.get(c, i);
+			}
+		}
+		Arrays.sort(result, LEXICOGRAPHIC);
+		return result;
+	}
+
+	/**
+	 * Checks the sorted chunks.
+	 *
+	 * @param expected
+	 *            Chunks sorted as separate arrays.
+	 *
+	 * @param chunks
+	 *            Sorted chunks.
+	 */
+	private static void check(int[][] expected, Chunks chunks) {
+		for (int c = 0; c < chunks.count(); c++) {
+			for (int i = 0; i < chunks.size(); i++) {
+				assertEquals("Chunk " + c + " symbol " + i, expected[c][i],
+						chunks.get(c, i));
+			}
+		}
+	}
+
+	/**
+	 * Packed codes have the order of the chunks and are unpacked to the same
+	 * chunks.
+	 */
+	@Test
+	public void codesKeepTheOrderOfTheChunks() {
+		RandomSource random = new RandomSource(1);
+		for (int size = 1; size <= 6; size++) {
+			int minimum = random.nextInt(200) - 100;
+			int maximum = minimum + random.nextInt(500);
+			ChunkCodec codec = new ChunkCodec(size, minimum, maximum);
+			assertTrue(codec.packable());
+
+			int[] first = new int[size], second = new int[size];
+			int[] decoded = new int[size];
+			for (int test = 0; test < 1000; test++) {
+				for (int i = 0; i < size; i++) {
+					first[i] = minimum + random.nextInt(maximum - minimum + 1);
+					second[i] = minimum
+							+ random.nextInt(maximum - minimum + 1);
+				}
+
+				long code = codec.encode(first, 0);
+				assertEquals(Integer.signum(LEXICOGRAPHIC.compare(first,
+						second)), Long.signum(Long.compare(code,
+								codec.encode(second, 0))));
+
+				codec.decode(code, decoded, 0);
+				assertArrayEquals(first, decoded);
+			}
+		}
+	}
+
+	/**
+	 * Sliding of a packed window gives the code of the next window.
+	 */
+	@Test
+	public void slidingWindowIsTheNextWindow() {
+		RandomSource random = new RandomSource(2);
+		int[] sequence = new int[97];
+		for (int i = 0; i < sequence.length; i++) {
+			sequence[i] = random.nextInt(13) - 5;
+		}
+
+		ChunkCodec codec = ChunkCodec.of(sequence, sequence.length, 5);
+		long code = codec.window(sequence, sequence.length, 0);
+		for (int position = 1; position < 3 * sequence.length; position++) {
+			code = codec.next(code, sequence[(position + codec.size() - 1)
+					% sequence.length]);
+			assertEquals(codec.window(sequence, sequence.length, position),
+					code);
+		}
+	}
+
+	/**
+	 * Full range of the integers is accepted without overflow, but it can
+	 * not be packed.
+	 */
+	@Test
+	public void fullRangeIsAcceptedButNotPackable() {
+		ChunkCodec codec = new ChunkCodec(1, Integer.MIN_VALUE,
+				Integer.MAX_VALUE);
+		assertTrue(codec.accepts(Integer.MIN_VALUE));
+		assertTrue(codec.accepts(Integer.MAX_VALUE));
+		assertFalse(new ChunkCodec(2, Integer.MIN_VALUE, Integer.MAX_VALUE)
+				.packable());
+		assertFalse(new ChunkCodec(3, 0, 7).accepts(8));
+		assertFalse(new ChunkCodec(3, 0, 7).accepts(-1));
+	}
+
+	/**
+	 * The codec of a previous sorting is widened when new symbols are out of
+	 * its range, and too wide symbols are sorted without packing.
+	 */
+	@Test
+	public void sortingWidensTheCodec() {
+		RandomSource random = new RandomSource(3);
+		Chunks chunks = new Chunks(300, 4);
+
+		/* Each range is wider than the previous one or out of it. */
+		int[] minimums = { 0, 0, 5, -1000, 0, Integer.MIN_VALUE, 0 };
+		long[] ranges = { 4, 1 << 10, 3, 1 << 12, 1 << 20, 1L << 32, 2 };
+		for (int r = 0; r < minimums.length; r++) {
+			fill(chunks, minimums[r], ranges[r], random);
+			int[][] expected = reference(chunks);
+			chunks.sort();
+			check(expected, chunks);
+		}
+	}
+
+	/**
+	 * Chunks of a new size are sorted with a new codec.
+	 */
+	@Test
+	public void sortingAfterResize() {
+		RandomSource random = new RandomSource(4);
+		Chunks chunks = new Chunks();
+		for (int size = 1; size <= 20; size += 3) {
+			chunks.resize(50 + random.nextInt(100), size);
+			fill(chunks, -3, 7, random);
+			int[][] expected = reference(chunks);
+			chunks.sort();
+			check(expected, chunks);
+		}
+	}
+
+}
@@ -0,0 +1,172 @@
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Chunk distances checked against their definitions. The bit-parallel
+ * Levenshtein distance is compared with the full dynamic programming matrix.
+ *
+ * @author Todor Balabanov
+ */
+public class ChunkDistanceTest {
+
+	/**
+	 * Edit distance by the full dynamic programming matrix.
+	 *
+	 * @param first
+	 *            Symbols of the first chunk.
+	 *
+	 * @param i
+	 *            Offset of the first chunk.
+	 *
+	 * @param second
+	 *            Symbols of the second chunk.
+	 *
+	 * @param j
+	 *            Offset of the second chunk.
+	 *
+	 * @param size
+	 *            Number of symbols in each chunk.
+	 *
+	 * @return Number of insertions, deletions and substitutions.
+	 */
+	private static int levenshtein(int[] first, int i, int[] second, int j,
+			int size) {
+		int[][] matrix = new int[size + 1][size + 1];
+		for (int a = 0; a <= size; a++) {
+			matrix[a][0] = a;
+			matrix[0][a] = a;
+		}
+
+		for (int a = 1; a <= size; a++) {
+			for (int b = 1; b <= size; b++) {
+				int substitution = matrix[a - 1][b - 1]
+						+ (first[i + a - 1] == second[j + b - 1] ? 0 : 1);
+				int deletion = matrix[a - 1][b] + 1;
+				int insertion = matrix[a][b - 1] + 1;
+				matrix[a][b] = Math.min(substitution,
+						Math.min(deletion, insertion));
+			}
+		}
+
+		return matrix[size][size];
+	}
+
+	/**
+	 * Random symbols from a small alphabet.
+	 *
+	 * @param length
+	 *            Number of symbols.
+	 *
+	 * @param symbols
+	 *            Number of different symbols.
+	 *
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 *
+	 * @return Array of symbols.
+	 */
+	private static int[] symbols(int length, int symbols,
+			RandomSource random) {
+		int[] result = new int[length];
+		for (int i = 0; i < length; i++) {
+			result[i] = random.nextInt(symbols);
+		}
+		return result;
+	}
+
+	/**
+	 * Bit-parallel distance of chunks up to 64 symbols and the rows of the
+	 * matrix for the longer chunks, at different offsets.
+	 */
+	@Test
+	public void levenshteinIsTheEditDistance() {
+		RandomSource random = new RandomSource(11);
+		for (int size = 0; size <= 140; size++) {
+			for (int test = 0; test < 30; test++) {
+				int symbols = 1 + random.nextInt(4);
+				int[] first = symbols(size + 7, symbols, random);
+				int[] second = symbols(size + 7, symbols, random);
+				int i = random.nextInt(8), j = random.nextInt(8);
+
+				/* Similar chunks have small distances. */
+				if (test % 3 == 0) {
+					System.arraycopy(first, i, second, j, size);
+					for (int k = random.nextInt(4); k > 0 && size > 0; k--) {
+						second[j + random.nextInt(size)] = random
+								.nextInt(symbols);
+					}
+				}
+
+				assertEquals("Size " + size,
+						levenshtein(first, i, second, j, size),
+						ChunkDistance.LEVENSHTEIN.distance(first, i, second,
+								j, size),
+						0);
+			}
+		}
+	}
+
+	/**
+	 * Reused rows of a long chunk do not change the distance of a shorter
+	 * one.
+	 */
+	@Test
+	public void levenshteinRowsAreReused() {
+		RandomSource random = new RandomSource(12);
+		for (int size : new int[] { 200, 70, 65, 300, 66 }) {
+			int[] first = symbols(size, 3, random);
+			int[] second = symbols(size, 3, random);
+			assertEquals(levenshtein(first, 0, second, 0, size),
+					ChunkDistance.LEVENSHTEIN.distance(first, 0, second, 0,
+							size),
+					0);
+		}
+	}
+
+	/**
+	 * Circular distance is the shorter number of steps around the circle,
+	 * also for symbols with a large difference.
+	 */
+	@Test
+	public void circularIsTheShorterWay() {
+		RandomSource random = new RandomSource(13);
+		for (int symbols = 1; symbols <= 20; symbols++) {
+			ChunkDistance distance = ChunkDistance.circular(symbols);
+			for (int test = 0; test < 200; test++) {
+				int[] first = { random.nextInt(), random.nextInt(symbols) };
+				int[] second = { random.nextInt(), random.nextInt(symbols) };
+
+				long expected = 0;
+				for (int k = 0; k < first.length; k++) {
+					int forward = 0;
+					while (Math.floorMod((long) second[k] + forward,
+							symbols) != Math.floorMod((long) first[k],
+									symbols)) {
+						forward++;
+					}
+					expected += Math.min(forward, symbols - forward);
+				}
+
+				assertEquals(expected,
+						distance.distance(first, 0, second, 0, 2), 0);
+			}
+		}
+	}
+
+	/**
+	 * Euclidean and Hamming distances do not overflow for extreme symbols.
+	 */
+	@Test
+	public void extremeSymbols() {
+		int[] first = { Integer.MIN_VALUE, Integer.MAX_VALUE };
+		int[] second = { Integer.MAX_VALUE, Integer.MAX_VALUE };
+		double difference = (double) Integer.MAX_VALUE - Integer.MIN_VALUE;
+
+		assertEquals(difference,
+				ChunkDistance.EUCLIDEAN.distance(first, 0, second, 0, 2), 0);
+		assertEquals(1,
+				ChunkDistance.HAMMING.distance(first, 0, second, 0, 2), 0);
+	}
+
+}
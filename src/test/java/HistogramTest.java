@@ -0,0 +1,186 @@
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Open addressing histogram with the count of counts index, checked against
+ * a map of the counters and a full scan for the least count.
+ *
+ * @author Todor Balabanov
+ */
+public class HistogramTest {
+
+	/**
+	 * Compares the histogram with the reference counters.
+	 *
+	 * @param order
+	 *            Codes in order of their first appearance.
+	 *
+	 * @param counters
+	 *            Counters of the codes.
+	 *
+	 * @param histogram
+	 *            Histogram to be checked.
+	 */
+	private static void check(List<Long> order, Map<Long, Integer> counters,
+			Histogram histogram) {
+		assertEquals(order.size(), histogram.distinct());
+
+		long total = 0;
+		int least = 0;
+		for (int i = 0; i < order.size(); i++) {
+			long code = order.get(i);
+			int count = counters.get(code);
+			assertEquals(code, histogram.code(i));
+			assertEquals(count, histogram.count(i));
+			assertEquals(count, histogram.get(code));
+			assertEquals(i, histogram.indexOf(code));
+
+			total += count;
+			if (count > 0 && (least == 0 || count < least)) {
+				least = count;
+			}
+		}
+
+		assertEquals(total, histogram.total());
+		assertEquals(least, histogram.least());
+	}
+
+	/**
+	 * Random increments and decrements of codes, which collide in the hash
+	 * table and make it grow several times.
+	 */
+	@Test
+	public void countersAndLeastFollowTheChanges() {
+		RandomSource random = new RandomSource(5);
+		Histogram histogram = new Histogram();
+		List<Long> order = new ArrayList<Long>();
+		Map<Long, Integer> counters = new HashMap<Long, Integer>();
+
+		for (int step = 0; step < 20000; step++) {
+			/* Small codes repeat often and large codes spread the table. */
+			long code = (random.nextInt(4) == 0) ? random.nextLong()
+					: random.nextInt(300) << 20;
+			Integer count = counters.get(code);
+
+			int amount = random.nextInt(5) - 2;
+			if (count == null || count + amount < 0) {
+				amount = random.nextInt(3) + 1;
+			}
+
+			int index = histogram.add(code, amount);
+			if (count == null) {
+				order.add(code);
+				count = 0;
+			}
+			counters.put(code, count + amount);
+			assertEquals(order.indexOf(code), index);
+
+			if (step % 97 == 0) {
+				check(order, counters, histogram);
+			}
+		}
+		check(order, counters, histogram);
+		assertEquals(-1, histogram.indexOf(-7));
+		assertEquals(0, histogram.get(-7));
+	}
+
+	/**
+	 * The least count moves up when all codes of the least count are
+	 * removed.
+	 */
+	@Test
+	public void leastMovesUpWhenItsCodesAreRemoved() {
+		Histogram histogram = new Histogram();
+		histogram.add(1, 3);
+		histogram.add(2, 5);
+		histogram.add(3, 3);
+		assertEquals(3, histogram.least());
+
+		histogram.add(1, 4);
+		assertEquals(3, histogram.least());
+		histogram.add(3, -3);
+		assertEquals(5, histogram.least());
+		histogram.add(2, -4);
+		assertEquals(1, histogram.least());
+		histogram.add(2, -1);
+		assertEquals(7, histogram.least());
+		histogram.add(1, -7);
+		assertEquals(0, histogram.least());
+	}
+
+	/**
+	 * Counters can not become negative.
+	 */
+	@Test(expected = RuntimeException.class)
+	public void negativeCountersAreRejected() {
+		Histogram histogram = new Histogram();
+		histogram.add(1, 2);
+		histogram.add(1, -3);
+	}
+
+	/**
+	 * A cleared histogram is the same as a new one.
+	 */
+	@Test
+	public void clearedHistogramIsReused() {
+		RandomSource random = new RandomSource(6);
+		Histogram histogram = new Histogram();
+		for (int i = 0; i < 1000; i++) {
+			histogram.add(random.nextInt(100));
+		}
+		histogram.clear();
+
+		List<Long> order = new ArrayList<Long>();
+		Map<Long, Integer> counters = new HashMap<Long, Integer>();
+		for (int i = 0; i < 1000; i++) {
+			long code = random.nextInt(50) + 75;
+			if (counters.containsKey(code) == false) {
+				order.add(code);
+				counters.put(code, 0);
+			}
+			counters.put(code, counters.get(code) + 1);
+			histogram.add(code);
+		}
+		check(order, counters, histogram);
+	}
+
+	/**
+	 * Written and read histogram has the same codes in the same order.
+	 *
+	 * @throws IOException
+	 *             If the histogram can not be written or read.
+	 */
+	@Test
+	public void writtenHistogramIsReadBack() throws IOException {
+		RandomSource random = new RandomSource(7);
+		Histogram histogram = new Histogram();
+		List<Long> order = new ArrayList<Long>();
+		Map<Long, Integer> counters = new HashMap<Long, Integer>();
+		for (int i = 0; i < 5000; i++) {
+			long code = random.nextLong() % 700;
+			if (counters.containsKey(code) == false) {
+				order.add(code);
+				counters.put(code, 0);
+			}
+			counters.put(code, counters.get(code) + 1);
+			histogram.add(code);
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		histogram.write(new DataOutputStream(bytes));
+		check(order, counters, Histogram.read(new DataInputStream(
+				new ByteArrayInputStream(bytes.toByteArray()))));
+	}
+
+}
@@ -0,0 +1,219 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Population in direct memory, checked against a list of the individuals on
+ * the heap and a set of their minimal rotations.
+ *
+ * @author Todor Balabanov
+ */
+public class OffHeapPopulationTest {
+
+	/**
+	 * Lexicographically minimal rotation found by comparing all of them.
+	 *
+	 * @param sequence
+	 *            Circular sequence of symbols.
+	 *
+	 * @return Symbols of the minimal rotation as a list.
+	 */
+	private static List<Integer> minimal(int[] sequence) {
+		List<Integer> result = null;
+		for (int start = 0; start < sequence.length; start++) {
+			List<Integer> rotation = new ArrayList<Integer>();
+			for (int i = 0; i < sequence.length; i++) {
+				rotation.add(sequence[(start + i) % sequence.length]);
+			}
+			if (result == null || rotation.toString()
+					.compareTo(result.toString()) < 0) {
+				result = rotation;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Context of a reel with symbols from a range.
+	 *
+	 * @param minimum
+	 *            The smallest symbol.
+	 *
+	 * @param range
+	 *            Difference of the largest and the smallest symbols.
+	 *
+	 * @return Reconstruction context of the reel.
+	 */
+	private static ReelContext context(int minimum, int range) {
+		return ReelContext.exact(
+				new int[] { minimum, minimum + range, minimum, minimum + 1,
+						minimum + range, minimum + 1, minimum + range,
+						minimum },
+				2, 10);
+	}
+
+	/**
+	 * Individual made of a few base symbols, so many individuals are
+	 * rotations of each other.
+	 *
+	 * @param context
+	 *            Reconstruction context of the reel.
+	 *
+	 * @param symbols
+	 *            Symbols of the individuals.
+	 *
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 *
+	 * @return Individual with random fitness and version.
+	 */
+	private static Chromosome individual(ReelContext context, int[] symbols,
+			RandomSource random) {
+		int length = context.minLength() + random.nextInt(Math.min(3,
+				context.maxLength() - context.minLength() + 1));
+		int[] sequence = new int[length];
+		for (int i = 0; i < length; i++) {
+			sequence[i] = symbols[random.nextInt(symbols.length)];
+		}
+
+		Chromosome result = new Chromosome();
+		result.sequence(sequence);
+		result.fitness(-random.nextInt(1000));
+		result.version(random.nextInt(5));
+		return result;
+	}
+
+	/**
+	 * Compares the population with the reference individuals.
+	 *
+	 * @param expected
+	 *            Individuals in their slots.
+	 *
+	 * @param population
+	 *            Population to be checked.
+	 */
+	private static void check(List<Chromosome> expected,
+			OffHeapPopulation population) {
+		assertEquals(expected.size(), population.size());
+
+		Set<List<Integer>> rotations = new HashSet<List<Integer>>();
+		double best = Double.NEGATIVE_INFINITY;
+		double worst = Double.POSITIVE_INFINITY;
+		double total = 0;
+		Chromosome scratch = new Chromosome();
+		for (int slot = 0; slot < expected.size(); slot++) {
+			Chromosome individual = expected.get(slot);
+			rotations.add(minimal(individual.sequence()));
+			best = Math.max(best, individual.fitness());
+			worst = Math.min(worst, individual.fitness());
+			total += individual.fitness();
+
+			population.load(slot, scratch);
+			assertArrayEquals(individual.sequence(), scratch.sequence());
+			assertEquals(individual.fitness(), scratch.fitness(), 0);
+			assertEquals(individual.version(), scratch.version());
+		}
+
+		assertEquals(rotations.size(), population.distinct());
+		assertEquals(best, population.fitness(population.bestIndex()), 0);
+		assertEquals(worst, population.fitness(population.worstIndex()),
+				0);
+		assertEquals(total, population.total(), 0);
+	}
+
+	/**
+	 * Random replacements in populations with small tables, where the
+	 * removed fingerprints shift the colliding ones back.
+	 */
+	@Test
+	public void replacementsKeepTheFingerprints() {
+		RandomSource random = new RandomSource(16);
+		ReelContext context = context(0, 2);
+		int[] symbols = { 0, 1 };
+
+		for (int capacity = 1; capacity <= 40; capacity++) {
+			OffHeapPopulation population = new OffHeapPopulation(capacity,
+					context);
+			List<Chromosome> expected = new ArrayList<Chromosome>();
+			for (int step = 0; step < 400; step++) {
+				Chromosome individual = individual(context, symbols, random);
+				if (expected.size() < capacity) {
+					assertEquals(expected.size(), population.add(individual));
+					expected.add(individual);
+				} else {
+					int slot = random.nextInt(capacity);
+					population.replace(slot, individual);
+					expected.set(slot, individual);
+				}
+
+				/* Rotations of the individuals are found, others are not. */
+				Chromosome candidate = individual(context, symbols, random);
+				boolean found = false;
+				for (Chromosome other : expected) {
+					found |= minimal(other.sequence())
+							.equals(minimal(candidate.sequence()));
+				}
+				assertEquals(found, population.contains(candidate));
+
+				check(expected, population);
+			}
+		}
+	}
+
+	/**
+	 * Slots written without bookkeeping are counted again by the filling.
+	 */
+	@Test
+	public void filledSlotsAreCountedAgain() {
+		RandomSource random = new RandomSource(17);
+		ReelContext context = context(0, 2);
+		int[] symbols = { 0, 1, 2 };
+		OffHeapPopulation population = new OffHeapPopulation(20, context);
+
+		for (int round = 0; round < 50; round++) {
+			List<Chromosome> expected = new ArrayList<Chromosome>();
+			for (int slot = random.nextInt(21); slot > 0; slot--) {
+				Chromosome individual = individual(context, symbols, random);
+				population.set(expected.size(), individual);
+				expected.add(individual);
+			}
+			population.fill(expected.size());
+			if (expected.isEmpty() == false) {
+				check(expected, population);
+			}
+			assertEquals(expected.size(), population.size());
+		}
+	}
+
+	/**
+	 * Symbols are stored in one, two and four bytes.
+	 */
+	@Test
+	public void widerSymbolsAreStored() {
+		RandomSource random = new RandomSource(18);
+		for (int range : new int[] { 255, 256, 65535, 65536, 1 << 28 }) {
+			for (int minimum : new int[] { 0, -range / 2, 1000 }) {
+				ReelContext context = context(minimum, range);
+				int[] symbols = { minimum, minimum + 1, minimum + range };
+				OffHeapPopulation population = new OffHeapPopulation(5,
+						context);
+				List<Chromosome> expected = new ArrayList<Chromosome>();
+				for (int i = 0; i < 5; i++) {
+					expected.add(individual(context, symbols, random));
+					population.add(expected.get(i));
+				}
+				check(expected, population);
+				assertArrayEquals(
+						expected.get(population.bestIndex()).sequence(),
+						population.best().sequence());
+			}
+		}
+	}
+
+}
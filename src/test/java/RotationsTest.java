@@ -0,0 +1,152 @@
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Minimum expression of the circular sequences, checked against a
+ * comparison of all rotations.
+ *
+ * @author Todor Balabanov
+ */
+public class RotationsTest {
+
+	/**
+	 * Rotation of a sequence.
+	 *
+	 * @param sequence
+	 *            Circular sequence of symbols.
+	 *
+	 * @param length
+	 *            Number of used symbols in the sequence.
+	 *
+	 * @param start
+	 *            Index of the first symbol of the rotation.
+	 *
+	 * @return Symbols of the rotation.
+	 */
+	private static int[] rotation(int[] sequence, int length, int start) {
+		int[] result = new int[length];
+		for (int i = 0; i < length; i++) {
+			result[i] = sequence[(start + i) % length];
+		}
+		return result;
+	}
+
+	/**
+	 * Lexicographically minimal rotation found by comparing all of them.
+	 *
+	 * @param sequence
+	 *            Circular sequence of symbols.
+	 *
+	 * @param length
+	 *            Number of used symbols in the sequence.
+	 *
+	 * @return Symbols of the minimal rotation.
+	 */
+	private static int[] minimal(int[] sequence, int length) {
+		int[] result = rotation(sequence, length, 0);
+		for (int start = 1; start < length; start++) {
+			int[] candidate = rotation(sequence, length, start);
+			if (Arrays.compare(candidate, result) < 0) {
+				result = candidate;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Random sequence with a few symbols, so equal runs and periodic
+	 * sequences are frequent.
+	 *
+	 * @param random
+	 *            Source of pseudo-random numbers.
+	 *
+	 * @return Sequence of symbols.
+	 */
+	private static int[] sequence(RandomSource random) {
+		int[] result = new int[1 + random.nextInt(40)];
+		int symbols = 1 + random.nextInt(3);
+		int period = 1 + random.nextInt(result.length);
+		for (int i = 0; i < result.length; i++) {
+			result[i] = (i < period) ? random.nextInt(symbols)
+					: result[i - period];
+		}
+		return result;
+	}
+
+	/**
+	 * The canonical start gives the minimal rotation.
+	 */
+	@Test
+	public void canonicalIsTheMinimalRotation() {
+		RandomSource random = new RandomSource(8);
+		for (int test = 0; test < 20000; test++) {
+			int[] sequence = sequence(random);
+			int[] expected = minimal(sequence, sequence.length);
+
+			int start = Rotations.canonical(sequence, sequence.length);
+			assertTrue(start >= 0 && start < sequence.length);
+			assertArrayEquals(Arrays.toString(sequence), expected,
+					rotation(sequence, sequence.length, start));
+			assertArrayEquals(expected,
+					Rotations.rotate(sequence, sequence.length));
+		}
+	}
+
+	/**
+	 * Only the used symbols of a longer storage are rotated.
+	 */
+	@Test
+	public void storageLongerThanTheSequence() {
+		RandomSource random = new RandomSource(9);
+		for (int test = 0; test < 5000; test++) {
+			int[] sequence = sequence(random);
+			int length = 1 + random.nextInt(sequence.length);
+			assertArrayEquals(minimal(sequence, length),
+					Rotations.rotate(sequence, length));
+		}
+	}
+
+	/**
+	 * All rotations have the same fingerprint and are equivalent to the
+	 * canonical one, while other sequences are not.
+	 */
+	@Test
+	public void rotationsAreEquivalent() {
+		RandomSource random = new RandomSource(10);
+		for (int test = 0; test < 2000; test++) {
+			int[] sequence = sequence(random);
+			int length = sequence.length;
+			int[] canonical = Rotations.rotate(sequence, length);
+			long fingerprint = Rotations.fingerprint(sequence, length);
+
+			for (int start = 0; start < length; start++) {
+				int[] rotated = rotation(sequence, length, start);
+				assertEquals(fingerprint,
+						Rotations.fingerprint(rotated, length));
+				assertTrue(Rotations.equivalent(canonical, rotated, length));
+			}
+
+			/* Other sequences are equivalent only if they are rotations. */
+			int[] other = sequence(random);
+			boolean rotation = other.length == length && Arrays
+					.equals(minimal(other, other.length), canonical);
+			assertEquals(rotation,
+					Rotations.equivalent(canonical, other, other.length));
+		}
+	}
+
+	/**
+	 * Empty sequence starts at zero.
+	 */
+	@Test
+	public void emptySequence() {
+		assertEquals(0, Rotations.canonical(new int[0], 0));
+		assertEquals(0, Rotations.rotate(new int[0], 0).length);
+	}
+
+}
@@ -0,0 +1,116 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Euclidean chunks distance with SIMD kernels of the Vector API. The squared
+ * differences of the flat chunks arrays are calculated in vectors, they are
+ * summed for each chunk and the square roots of the sums are summed in
+ * vectors again. Symbols should differ by less than 46341, so their squared
+ * differences fit in integers.
+ *
+ * The class is compiled only with the jdk.incubator.vector module and it is
+ * loaded by name, so the scalar Euclidean distance is used without it.
+ *
+ * @author Todor Balabanov
+ */
+class VectorEuclidean implements ChunkDistance {
+
+	/**
+	 * Vector shape for the symbols.
+	 */
+	private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+	/**
+	 * Vector shape for the chunk distances.
+	 */
+	private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+	/**
+	 * Squared differences buffer of each thread.
+	 */
+	private final ThreadLocal<int[]> squares = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[0];
+		}
+	};
+
+	/**
+	 * Sums of the squared differences buffer of each thread.
+	 */
+	private final ThreadLocal<double[]> sums = new ThreadLocal<double[]>() {
+		@Override
+		protected double[] initialValue() {
+			return new double[0];
+		}
+	};
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double distance(int[] first, int i, int[] second, int j,
+			int size) {
+		return ChunkDistance.EUCLIDEAN.distance(first, i, second, j, size);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public double total(int[] first, int[] second, int count, int size) {
+		int length = count * size;
+
+		/* Buffers grow only when longer chunks lists are met. */
+		int[] squared = squares.get();
+		if (squared.length < length) {
+			squared = new int[length];
+			squares.set(squared);
+		}
+		double[] summed = sums.get();
+		if (summed.length < count) {
+			summed = new double[count];
+			sums.set(summed);
+		}
+
+		/* Squared differences of the symbols. */
+		int k = 0;
+		for (int bound = INTS.loopBound(length); k < bound; k += INTS
+				.length()) {
+			IntVector difference = IntVector.fromArray(INTS, first, k)
+					.sub(IntVector.fromArray(INTS, second, k));
+			difference.mul(difference).intoArray(squared, k);
+		}
+		for (; k < length; k++) {
+			int difference = first[k] - second[k];
+			squared[k] = difference * difference;
+		}
+
+		/* Sums for each chunk. */
+		for (int c = 0, offset = 0; c < count; c++) {
+			long sum = 0;
+			for (int end = offset + size; offset < end; offset++) {
+				sum += squared[offset];
+			}
+			summed[c] = sum;
+		}
+
+		/* Square roots as it is in the Euclidean norm. */
+		DoubleVector total = DoubleVector.zero(DOUBLES);
+		int c = 0;
+		for (int bound = DOUBLES.loopBound(count); c < bound; c += DOUBLES
+				.length()) {
+			total = total.add(DoubleVector.fromArray(DOUBLES, summed, c)
+					.lanewise(VectorOperators.SQRT));
+		}
+		double result = total.reduceLanes(VectorOperators.ADD);
+		for (; c < count; c++) {
+			result += Math.sqrt(summed[c]);
+		}
+
+		return result;
+	}
+
+}